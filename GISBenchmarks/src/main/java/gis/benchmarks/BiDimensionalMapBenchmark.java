@@ -0,0 +1,170 @@
+package gis.benchmarks;
+
+import gis.BiDimensionalMap;
+import gis.Coordinate;
+import gis.FixedPoint;
+import gis.MortonBiDimensionalMap;
+import gis.Rectangle;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the Updater, put, snapshot, get, slice, coordinateSet and collectionSize of {@code BiDimensionalMap},
+ * and get and slice of the same points in a {@code MortonBiDimensionalMap}.
+ * <p>Run a single size with {@code java -jar target/benchmarks.jar BiDimensionalMapBenchmark -p size=100000}</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BiDimensionalMapBenchmark {
+
+    private static final int VIEWPORTS = 1024;
+    private static final int WRITES_PER_SNAPSHOT = 1024;
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int size;
+
+    @Param({"UNIFORM", "CLUSTERED"})
+    public Datasets.Distribution distribution;
+
+    private Coordinate[] coordinates;
+    private Rectangle[] viewports;
+    private BiDimensionalMap<Integer> map;
+    private MortonBiDimensionalMap<Integer> mortonMap;
+    private BiDimensionalMap<Integer>.Updater reusedUpdater;
+    private BiDimensionalMap<Integer>.Updater restoreUpdater;
+    private int next = 0;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        coordinates = Datasets.coordinates(size, distribution);
+        viewports = Datasets.viewports(VIEWPORTS, 0.001);
+        map = new BiDimensionalMap<>();
+        for (int i = 0; i < coordinates.length; i++) {
+            map.getUpdater().setCoordinate(coordinates[i]).addValue(i).add();
+        }
+        mortonMap = MortonBiDimensionalMap.of(map, FixedPoint.MICRODEGREES);
+        reusedUpdater = map.getUpdater();
+        restoreUpdater = map.getUpdater();
+    }
+
+    private int next() {
+        next = (next + 1) % coordinates.length;
+        return next;
+    }
+
+    /**
+     * Sets the markers at the coordinate back to the ones added by setUp, removing the marker -index - 1
+     * added by a write benchmark. Every write benchmark calls this after its write, in the measured time,
+     * so that each call really adds a marker and the map does not grow between calls.
+     * Subtract the time of {@code restore} from theirs to get the time of the write alone.
+     */
+    private void restore(int index) {
+        Coordinate coordinate = coordinates[index];
+        restoreUpdater.reset().setCoordinate(coordinate);
+        for (Integer value : map.get(coordinate)) {
+            //only the markers added by setUp are not negative
+            if (value >= 0) {
+                restoreUpdater.addValue(value);
+            }
+        }
+        restoreUpdater.set();
+    }
+
+    @Benchmark
+    public void restore() {
+        restore(next());
+    }
+
+    @Benchmark
+    public boolean updaterAdd() {
+        int i = next();
+        boolean added = map.getUpdater().setCoordinate(coordinates[i]).addValue(-i - 1).add();
+        restore(i);
+        return added;
+    }
+
+    @Benchmark
+    public boolean reusedUpdaterAdd() {
+        int i = next();
+        boolean added = reusedUpdater.reset().setCoordinate(coordinates[i]).addValue(-i - 1).add();
+        restore(i);
+        return added;
+    }
+
+    @Benchmark
+    public boolean put() {
+        int i = next();
+        boolean added = map.put(coordinates[i], -i - 1);
+        restore(i);
+        return added;
+    }
+
+    /**
+     * Makes a snapshot and then writes {@code WRITES_PER_SNAPSHOT} markers, each followed by its restore.
+     * The first write copies the x values of the map and later writes only copy the columns they change,
+     * so the time of one write includes its share of that copy.
+     */
+    @Benchmark
+    @OperationsPerInvocation(WRITES_PER_SNAPSHOT)
+    public BiDimensionalMap<Integer> snapshotAndPut() {
+        BiDimensionalMap<Integer> snapshot = map.snapshot();
+        for (int write = 0; write < WRITES_PER_SNAPSHOT; write++) {
+            int i = next();
+            map.put(coordinates[i], -i - 1);
+            restore(i);
+        }
+        return snapshot;
+    }
+
+    @Benchmark
+    public Collection<Integer> get() {
+        return map.get(coordinates[next()]);
+    }
+
+    @Benchmark
+    public BiDimensionalMap<Integer> slice() {
+        return map.slice(viewports[next() % VIEWPORTS]);
+    }
+
+    @Benchmark
+    public Collection<Integer> mortonGet() {
+        return mortonMap.get(coordinates[next()]);
+    }
+
+    @Benchmark
+    public MortonBiDimensionalMap<Integer> mortonSlice() {
+        return mortonMap.slice(viewports[next() % VIEWPORTS]);
+    }
+
+    @Benchmark
+    public long sliceCollectionSize() {
+        return map.slice(viewports[next() % VIEWPORTS]).collectionSize();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Coordinate> coordinateSet() {
+        return map.coordinateSet();
+    }
+
+    @Benchmark
+    public long collectionSize() {
+        return map.collectionSize();
+    }
+
+    @Benchmark
+    public void coordinateSetIteration(Blackhole blackhole) {
+        for (Coordinate coordinate : map.slice(viewports[next() % VIEWPORTS]).coordinateSet()) {
+            blackhole.consume(coordinate);
+        }
+    }
+}
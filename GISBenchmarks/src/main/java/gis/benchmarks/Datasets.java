@@ -0,0 +1,94 @@
+package gis.benchmarks;
+
+import gis.Coordinate;
+import gis.InterestPoint;
+import gis.Rectangle;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+/**
+ * Makes the same random points for every benchmark run.
+ * Coordinates are in [0, EXTENT) on both axes with 6 decimal places, like GPS microdegrees.
+ */
+public final class Datasets {
+
+    static final int EXTENT = 1000;
+    private static final int CLUSTERS = 20;
+    private static final long SEED = 293;
+
+    /**
+     * How the random points are spread over the map
+     */
+    public enum Distribution {
+        /** Every location is equally likely */
+        UNIFORM,
+        /** Points are gathered around a few centers, like buildings in cities */
+        CLUSTERED
+    }
+
+    public enum BenchmarkMarker {
+        CLASSROOM, SCHOOL, HOME, WORK, LAB
+    }
+
+    private Datasets() { }
+
+    static Coordinate[] coordinates(int size, Distribution distribution) {
+        Random random = new Random(SEED);
+        Coordinate[] coordinates = new Coordinate[size];
+
+        if (distribution == Distribution.UNIFORM) {
+            for (int i = 0; i < size; i++) {
+                coordinates[i] = coordinate(random.nextDouble() * EXTENT, random.nextDouble() * EXTENT);
+            }
+        } else {
+            double[][] centers = new double[CLUSTERS][];
+            for (int i = 0; i < CLUSTERS; i++) {
+                centers[i] = new double[] {random.nextDouble() * EXTENT, random.nextDouble() * EXTENT};
+            }
+            for (int i = 0; i < size; i++) {
+                double[] center = centers[random.nextInt(CLUSTERS)];
+                double x = clamp(center[0] + random.nextGaussian() * EXTENT / 100.0);
+                double y = clamp(center[1] + random.nextGaussian() * EXTENT / 100.0);
+                coordinates[i] = coordinate(x, y);
+            }
+        }
+        return coordinates;
+    }
+
+    static InterestPoint<BenchmarkMarker>[] interestPoints(int size, Distribution distribution) {
+        Random random = new Random(SEED);
+        BenchmarkMarker[] markers = BenchmarkMarker.values();
+        Coordinate[] coordinates = coordinates(size, distribution);
+
+        @SuppressWarnings("unchecked")
+        InterestPoint<BenchmarkMarker>[] interestPoints = new InterestPoint[size];
+        for (int i = 0; i < size; i++) {
+            interestPoints[i] = new InterestPoint<>(coordinates[i], markers[random.nextInt(markers.length)]);
+        }
+        return interestPoints;
+    }
+
+    /**
+     * @return random square viewports that each cover {@code areaFraction} of the map
+     */
+    static Rectangle[] viewports(int count, double areaFraction) {
+        Random random = new Random(SEED + 1);
+        double side = Math.sqrt(areaFraction) * EXTENT;
+        Rectangle[] viewports = new Rectangle[count];
+        for (int i = 0; i < count; i++) {
+            double left = random.nextDouble() * (EXTENT - side);
+            double bottom = random.nextDouble() * (EXTENT - side);
+            viewports[i] = new Rectangle(coordinate(left, bottom), coordinate(left + side, bottom + side));
+        }
+        return viewports;
+    }
+
+    static Coordinate coordinate(double x, double y) {
+        return new Coordinate(BigDecimal.valueOf(Math.round(x * 1e6), 6), BigDecimal.valueOf(Math.round(y * 1e6), 6));
+    }
+
+    private static double clamp(double value) {
+        return Math.max(0, Math.min(EXTENT - 1e-6, value));
+    }
+}
@@ -0,0 +1,67 @@
+package gis.benchmarks;
+
+import gis.Coordinate;
+import gis.Rectangle;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the hot paths of {@code Coordinate} and {@code Rectangle}: sorting coordinates with
+ * {@code compareTo}, and testing coordinates against the borders of a rectangle.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GeometryBenchmark {
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    @Param({"UNIFORM", "CLUSTERED"})
+    public Datasets.Distribution distribution;
+
+    private Coordinate[] coordinates;
+    private Rectangle rectangle;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        coordinates = Datasets.coordinates(size, distribution);
+        rectangle = Datasets.viewports(1, 0.25)[0];
+    }
+
+    /**
+     * Sorts a copy of the coordinates. Copying the array is linear and takes little time next to
+     * the O(n log n) comparisons of the sort, so it is measured with it instead of in a per-call fixture.
+     */
+    @Benchmark
+    public Coordinate[] sort() {
+        Coordinate[] sorted = coordinates.clone();
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    @Benchmark
+    public void compareTo(Blackhole blackhole) {
+        for (int i = 1; i < coordinates.length; i++) {
+            blackhole.consume(coordinates[i - 1].compareTo(coordinates[i]));
+        }
+    }
+
+    @Benchmark
+    public int contains() {
+        int count = 0;
+        for (Coordinate coordinate : coordinates) {
+            if (rectangle.left().compareTo(coordinate.x()) <= 0 && coordinate.x().compareTo(rectangle.right()) < 0
+                    && rectangle.bottom().compareTo(coordinate.y()) <= 0 && coordinate.y().compareTo(rectangle.top()) < 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
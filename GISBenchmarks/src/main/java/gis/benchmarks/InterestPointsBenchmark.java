@@ -0,0 +1,58 @@
+package gis.benchmarks;
+
+import gis.InterestPoint;
+import gis.InterestPoints;
+import gis.Rectangle;
+import gis.RectilinearRegion;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@code InterestPoints.count} over a region made of four separate viewports, with each count index.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InterestPointsBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int size;
+
+    @Param({"UNIFORM", "CLUSTERED"})
+    public Datasets.Distribution distribution;
+
+    @Param({"MARKER_MAPS", "PREFIX_SUMS", "STR_TREE"})
+    public InterestPoints.CountIndex countIndex;
+
+    private InterestPoints<Datasets.BenchmarkMarker> interestPoints;
+    private RectilinearRegion region;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InterestPoints.Builder<Datasets.BenchmarkMarker> builder = new InterestPoints.Builder<Datasets.BenchmarkMarker>().countIndex(countIndex);
+        for (InterestPoint<Datasets.BenchmarkMarker> interestPoint : Datasets.interestPoints(size, distribution)) {
+            builder.add(interestPoint);
+        }
+        interestPoints = builder.build();
+
+        //four quarter-size squares, one in each corner of the map
+        double quarter = Datasets.EXTENT / 4.0;
+        double threeQuarters = 3 * quarter;
+        region = RectilinearRegion.of(Set.of(
+                new Rectangle(Datasets.coordinate(0, 0), Datasets.coordinate(quarter, quarter)),
+                new Rectangle(Datasets.coordinate(threeQuarters, 0), Datasets.coordinate(Datasets.EXTENT, quarter)),
+                new Rectangle(Datasets.coordinate(0, threeQuarters), Datasets.coordinate(quarter, Datasets.EXTENT)),
+                new Rectangle(Datasets.coordinate(threeQuarters, threeQuarters), Datasets.coordinate(Datasets.EXTENT, Datasets.EXTENT))
+        ));
+    }
+
+    @Benchmark
+    public long count() {
+        return interestPoints.count(region, Datasets.BenchmarkMarker.LAB);
+    }
+}
@@ -0,0 +1,49 @@
+package gis.benchmarks;
+
+import gis.Coordinate;
+import gis.Rectangle;
+import gis.RectilinearRegion;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@code RectilinearRegion.of} for a square grid of touching rectangles,
+ * which is the worst case for overlap detection since every rectangle has neighbours.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RectilinearRegionBenchmark {
+
+    @Param({"16", "256", "4096", "65536"})
+    public int rectangles;
+
+    private Set<Rectangle> grid;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int side = (int) Math.sqrt(rectangles);
+        grid = new HashSet<>();
+        for (int x = 0; x < side; x++) {
+            for (int y = 0; y < side; y++) {
+                grid.add(new Rectangle(coordinate(x, y), coordinate(x + 1, y + 1)));
+            }
+        }
+    }
+
+    private static Coordinate coordinate(int x, int y) {
+        return new Coordinate(BigDecimal.valueOf(x), BigDecimal.valueOf(y));
+    }
+
+    @Benchmark
+    public RectilinearRegion of() {
+        return RectilinearRegion.of(grid);
+    }
+}
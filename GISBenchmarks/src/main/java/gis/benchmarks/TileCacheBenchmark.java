@@ -0,0 +1,73 @@
+package gis.benchmarks;
+
+import gis.BiDimensionalMap;
+import gis.Coordinate;
+import gis.Rectangle;
+import gis.TileCache;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks drawing 16 x 16 grids over a set of viewports, counting each grid with {@code gridCounts}
+ * or reusing the tiles of a {@code TileCache} that holds every viewport, and drawing again after each
+ * change to the map, which the cache applies to its tiles without counting them again.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TileCacheBenchmark {
+
+    private static final int VIEWPORTS = 64;
+    private static final int ZOOM = 4;
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    @Param({"UNIFORM", "CLUSTERED"})
+    public Datasets.Distribution distribution;
+
+    private BiDimensionalMap<Integer> map;
+    private Rectangle[] viewports;
+    private Coordinate[] coordinates;
+    private TileCache<Integer> tileCache;
+    private int next = 0;
+    private int nextCoordinate = 0;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        coordinates = Datasets.coordinates(size, distribution);
+        map = new BiDimensionalMap<>();
+        for (int i = 0; i < coordinates.length; i++) {
+            map.put(coordinates[i], i);
+        }
+        viewports = Datasets.viewports(VIEWPORTS, 0.01);
+        tileCache = new TileCache<>(map, VIEWPORTS);
+    }
+
+    private Rectangle nextViewport() {
+        next = (next + 1) % VIEWPORTS;
+        return viewports[next];
+    }
+
+    @Benchmark
+    public long[][] gridCounts() {
+        return map.gridCounts(nextViewport(), 1 << ZOOM, 1 << ZOOM);
+    }
+
+    @Benchmark
+    public TileCache.Tile cachedTile() {
+        return tileCache.tile(nextViewport(), ZOOM);
+    }
+
+    @Benchmark
+    public TileCache.Tile setAndCachedTile() {
+        nextCoordinate = (nextCoordinate + 1) % coordinates.length;
+        //replaces the marker at an existing coordinate, so the map does not grow between trials
+        map.getUpdater().setCoordinate(coordinates[nextCoordinate]).addValue(next).set();
+        return tileCache.tile(nextViewport(), ZOOM);
+    }
+}
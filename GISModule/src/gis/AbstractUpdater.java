@@ -0,0 +1,79 @@
+package gis;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * The part of an Updater that is the same for every map: collecting the markers given to {@code addValue},
+ * and adding them to or replacing the markers of a cell. Each map's Updater keeps the location in its own
+ * coordinates and finds the cell in its own points.
+ * <p>Each Updater still declares its own {@code addValue}, returning its own type, which only calls
+ * {@code collect}.</p>
+ * @param <T> the type for markers stored at each coordinate point.
+ */
+abstract class AbstractUpdater<T> {
+
+    //Gives the collection that stores the markers added with addValue, and the copies of previous markers
+    private final Supplier<? extends Collection<T>> collectionFactory;
+
+    //Stores the markers to be added to the map with add() or set(). Made when the first marker is added
+    private Collection<T> values = null;
+
+    AbstractUpdater(Supplier<? extends Collection<T>> collectionFactory) {
+        this.collectionFactory = Objects.requireNonNull(collectionFactory);
+    }
+
+    /**
+     * Adds a marker to the markers that {@code add()} or {@code set()} put in the map
+     * @param value The (non-null) marker
+     */
+    final void collect(T value) {
+        Objects.requireNonNull(value);
+        if (values == null) {
+            values = collectionFactory.get();
+        }
+        values.add(value);
+    }
+
+    /**
+     * @return the markers added with {@code addValue}, which is empty if none were added
+     */
+    final Collection<T> values() {
+        return values == null ? List.of() : values;
+    }
+
+    /**
+     * Removes the markers added with {@code addValue}
+     */
+    final void clearValues() {
+        if (values != null) {
+            values.clear();
+        }
+    }
+
+    /**
+     * Replaces the markers of a cell with the markers added with {@code addValue}
+     * @param newCell true if the cell was just added to the map, so it has no previous markers
+     * @return a copy of the previous markers of the cell, or null if it is a new cell
+     */
+    final Collection<T> replaceMarkers(Collection<T> cell, boolean newCell) {
+        Collection<T> previousValues = null;
+        if (!newCell) {
+            previousValues = collectionFactory.get();
+            previousValues.addAll(cell);
+            cell.clear();
+        }
+        cell.addAll(values());
+        return previousValues;
+    }
+
+    /**
+     * Adds the markers added with {@code addValue} to a cell
+     * @return true if the markers of the cell changed
+     */
+    final boolean addMarkers(Collection<T> cell) {
+        return values != null && cell.addAll(values);
+    }
+}
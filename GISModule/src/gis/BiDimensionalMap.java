@@ -2,9 +2,15 @@ package gis;
 
 import java.math.BigDecimal;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * A 2D map used to store information about landmarks in a geographical area.
@@ -17,15 +23,108 @@ public class BiDimensionalMap <T> {
      * Markers stored in a Sorted Map of Sorted Maps
      * Works by accessing the first sorted map with the x value as key ( with points.get(x)) to
      * get a map of all collections of markers ( with points.get(x).get(y) ) at y locations for that x
+     * <p>Null for a view, which reads the points of the map it shows with {@code points()}.</p>
      */
-    private final SortedMap<BigDecimal, SortedMap<BigDecimal, Collection<T> > > points = new TreeMap<>();
+    private NavigableMap<BigDecimal, Column<T>> points;
 
-    public BiDimensionalMap() { }
+    /**
+     * The bounds of a view made with {@code view(Rectangle)}, or null if this map owns its points.
+     * Views are read-only and only show the points of {@code points} within the window
+     * (left and bottom inclusive, right and top exclusive).
+     */
+    private final Rectangle window;
+
+    /**
+     * The number of markers in the map, kept up to date by the {@code Updater} along with the size of each column.
+     * Only used when this map is not a view.
+     */
+    private long size = 0;
+
+    /**
+     * True for a snapshot made with {@code snapshot()}, which can never change.
+     * <p>A snapshot shares the points, columns and collections of the map it was made from. The map copies
+     * them the first time it changes them after the snapshot: {@code pointsShared} is true until the points have been
+     * copied, and each snapshot starts a new {@code generation}, so that the columns made in an earlier generation,
+     * and their collections, are copied before they change. A map that never makes a snapshot never copies anything.</p>
+     */
+    private final boolean frozen;
+    private boolean pointsShared = false;
+    private long generation = 0;
+
+    //the window of a view that shows nothing, a horizontal line since no point is below its top and not below its bottom
+    private static final Rectangle EMPTY_WINDOW = new Rectangle(Coordinate.ORIGIN, new Coordinate(BigDecimal.ONE, BigDecimal.ZERO));
+
+    /**
+     * The map that owns the points, which is this map if it is not a view.
+     * Its version goes up by one for each change, and each change is given to its listeners,
+     * including the listeners added through its views.
+     */
+    private final BiDimensionalMap<T> owner;
+    private long version = 0;
+    private final List<Listener<T>> listeners = new CopyOnWriteArrayList<>();
+
+    //The last changeLogCapacity changes of the map, oldest first, which have consecutive versions
+    private final ArrayDeque<Change<T>> changeLog = new ArrayDeque<>();
+    private int changeLogCapacity = 0;
+
+    /**
+     * A change to the markers at one coordinate of a map, which is given to the listeners of the map
+     * after the map has changed. A coordinate added without markers is a change with nothing added or removed.
+     * @param coordinate where the markers changed
+     * @param removed the markers that were at the coordinate before the change but are not anymore,
+     *                which is only ever non-empty for {@code Updater.set()}
+     * @param added the markers that are at the coordinate after the change but were not before
+     * @param version the version of the map after the change
+     * @param <T> the type of the markers
+     */
+    public record Change<T>(Coordinate coordinate, Collection<T> removed, Collection<T> added, long version) { }
+
+    //a listener, and the map or view it was added to, which only passes on the changes inside its window
+    private record Listener<T>(BiDimensionalMap<T> map, Consumer<? super Change<T>> consumer) { }
+
+    //Gives the initial instance of the collection stored at the (x,y) coordinates
+    private final Supplier<? extends Collection<T>> collectionFactory;
+
+    //the functions that computeIfAbsent calls on a miss, kept so that writes to existing cells allocate no lambda
+    private final Function<BigDecimal, Collection<T>> newCell;
+    private final Function<BigDecimal, Column<T>> newColumn = key -> new Column<>(generation);
+
+    /**
+     * Creates a map that stores the markers at each coordinate in a {@code HashSet}
+     */
+    public BiDimensionalMap() {
+        this(HashSet::new);
+    }
+
+    /**
+     * Creates a map that stores the markers at each coordinate in a collection made by {@code collectionFactory}.
+     * The collections should not keep duplicate markers, like a set. When most coordinates have a single marker,
+     * {@code CompactSet::new} uses much less memory than a {@code HashSet}.
+     */
+    public BiDimensionalMap(Supplier<? extends Collection<T>> collectionFactory) {
+        this(new TreeMap<>(), null, Objects.requireNonNull(collectionFactory), null, false);
+    }
+
+    /**
+     * Creates a map backed by the given points, or a view of owner if window is not null
+     */
+    private BiDimensionalMap(NavigableMap<BigDecimal, Column<T>> points, Rectangle window,
+                             Supplier<? extends Collection<T>> collectionFactory, BiDimensionalMap<T> owner, boolean frozen) {
+        assert (window == null) == (owner == null);
+        assert (window == null) == (points != null);
+        this.points = points;
+        this.window = window;
+        this.collectionFactory = collectionFactory;
+        this.newCell = key -> collectionFactory.get();
+        this.owner = owner == null ? this : owner;
+        this.frozen = frozen;
+    }
 
     /**
      * Enters a new hashmap in all the coordinates made of (xCoord, yCoord)
      */
     BiDimensionalMap ( Collection<BigDecimal> xCoord, Collection<BigDecimal> yCoord) {
+        this();
 
         for (BigDecimal x: xCoord) {
             for (BigDecimal y: yCoord) {
@@ -53,19 +152,19 @@ public class BiDimensionalMap <T> {
      */
     public void addEverywhere(List<Coordinate> coordinateSet, T value) {
         for (Coordinate coordinate : coordinateSet){
-            Updater updater = getUpdater();
-            updater.setCoordinate(coordinate).addValue(value).add();
+            put(coordinate, value);
         }
     }
 
     /**
      * Gets the collection of markers at the given (x, y) coordinates.
+     * The collection can not be modified, use the {@code Updater} to change it.
      * @return The collection if it exists, or null if no collection exists there
      */
     public final Collection<T> get(BigDecimal x, BigDecimal y){
         validate(x, y);
         if (collectionExistsAt(x, y)){
-            return points.get(x).get(y);
+            return readOnly(points().get(x).get(y));
         }
         else {
             return null;
@@ -86,8 +185,12 @@ public class BiDimensionalMap <T> {
      * If true, markers can be safely added to points.get(x).get(y)*/
     private boolean collectionExistsAt(BigDecimal x, BigDecimal y){
         validate(x, y);
-        if (points.containsKey(x)){
-            return points.get(x).containsKey(y);
+        if (!isInWindow(x, y)) {
+            return false;
+        }
+        NavigableMap<BigDecimal, Collection<T>> column = points().get(x);
+        if (column != null){
+            return column.containsKey(y);
         } else {
             return false;
         }
@@ -98,7 +201,14 @@ public class BiDimensionalMap <T> {
      * @return the collection of x coordinates in the map, or an empty set if none exist.
      */
     public final Set<BigDecimal> xSet() {
-        return points.keySet();
+        if (window == null) {
+            return Collections.unmodifiableSet(points.keySet());
+        }
+        //a column inside the window can still be empty if none of its y values are inside the window
+        return columns().entrySet().stream()
+                .filter(column -> !cells(column.getValue()).isEmpty())
+                .map(Map.Entry::getKey)
+                .collect(Collectors.collectingAndThen(Collectors.toCollection(TreeSet::new), Collections::unmodifiableSet));
     }
 
     /**
@@ -107,8 +217,9 @@ public class BiDimensionalMap <T> {
      */
     public final Set<BigDecimal> ySet(BigDecimal x) {
         Objects.requireNonNull(x);
-        if (points.containsKey(x)) {
-            return points.get(x).keySet();
+        NavigableMap<BigDecimal, Collection<T>> column = columns().get(x);
+        if (column != null && !cells(column).isEmpty()) {
+            return Collections.unmodifiableSet(cells(column).keySet());
         } else {
             throw new IllegalArgumentException("Given x value does not exist yet in the map");
         }
@@ -119,18 +230,93 @@ public class BiDimensionalMap <T> {
      * @return the list of sorted coordinates, or an empty list if none exist
      */
     public final List<Coordinate> coordinateSet(){
-        List<Coordinate> coordinateList = new ArrayList<>();
+        return coordinates().collect(Collectors.toList());
+    }
+
+    /**
+     * Streams the coordinates of the map in sorted order without copying them into a list first.
+     * <p>A parallel stream splits the coordinates by ranges of x values. The stream reads the map as it is consumed,
+     * so the map should not be changed until the stream is done.</p>
+     * @return a lazy stream of the sorted coordinates
+     */
+    public final Stream<Coordinate> coordinates(){
+        return columnStream()
+                .flatMap(column -> cells(column.getValue()).keySet().stream()
+                        .map(y -> new Coordinate(column.getKey(), y)));
+    }
+
+    /**
+     * Streams the markers of the map, sorted by their coordinates, without copying them into a list first.
+     * Like {@code coordinates()}, a parallel stream splits the markers by ranges of x values.
+     * @return a lazy stream of the markers
+     */
+    public final Stream<T> stream(){
+        return columnStream()
+                .flatMap(column -> cells(column.getValue()).values().stream())
+                .flatMap(Collection::stream);
+    }
+
+    private Stream<Map.Entry<BigDecimal, Column<T>>> columnStream() {
+        return StreamSupport.stream(new ColumnSpliterator<>(columns(), points().size()), false);
+    }
+
+    /**
+     * A Spliterator over the columns of a map that splits them at the middle of their x values,
+     * so each half is a range of x values that can be found in the sorted map without iterating it.
+     */
+    private static final class ColumnSpliterator<V> implements Spliterator<Map.Entry<BigDecimal, V>> {
+
+        private static final BigDecimal TWO = BigDecimal.valueOf(2);
+
+        private NavigableMap<BigDecimal, V> columns;
+        //made when the first column is read, after which the Spliterator can no longer be split
+        private Iterator<Map.Entry<BigDecimal, V>> iterator = null;
+        private long estimatedSize;
 
-        X_VALUES_IN_POINTS:
-        for (BigDecimal x : xSet()) {
+        private ColumnSpliterator(NavigableMap<BigDecimal, V> columns, long estimatedSize) {
+            this.columns = columns;
+            this.estimatedSize = estimatedSize;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Map.Entry<BigDecimal, V>> action) {
+            if (iterator == null) {
+                iterator = columns.entrySet().iterator();
+            }
+            if (iterator.hasNext()) {
+                action.accept(iterator.next());
+                return true;
+            }
+            return false;
+        }
 
-            Y_VALUES_FOR_EACH_X:
-            for (BigDecimal y : ySet(x)) {
-                coordinateList.add(new Coordinate(x, y));
+        @Override
+        public Spliterator<Map.Entry<BigDecimal, V>> trySplit() {
+            if (iterator != null || columns.isEmpty()) {
+                return null;
+            }
+            BigDecimal first = columns.firstKey();
+            BigDecimal last = columns.lastKey();
+            if (first.compareTo(last) >= 0) {
+                return null;
             }
+            //first < middle <= last, so both halves have at least one column
+            BigDecimal middle = first.add(last).divide(TWO);
+            ColumnSpliterator<V> lowerHalf = new ColumnSpliterator<>(columns.headMap(middle, false), estimatedSize / 2);
+            columns = columns.tailMap(middle, true);
+            estimatedSize -= lowerHalf.estimatedSize;
+            return lowerHalf;
+        }
+
+        @Override
+        public long estimateSize() {
+            return estimatedSize;
         }
 
-        return coordinateList;
+        @Override
+        public int characteristics() {
+            return ORDERED | DISTINCT | NONNULL;
+        }
     }
 
     /**
@@ -138,18 +324,125 @@ public class BiDimensionalMap <T> {
      * @return a list of contents from points, implicitly sorted by their coordinates.
      */
     public final List<Collection<T>> collectionList(){
-        List<Coordinate> coordinateSet = coordinateSet();
-
-        return coordinateSet.stream()
-                .map(coordinate -> points.get(coordinate.x()).get(coordinate.y()))
+        return columns().values().stream()
+                .flatMap(column -> cells(column).values().stream())
+                .map(this::readOnly)
                 .collect(Collectors.toList());
     }
 
     /**
-     * @return the number of markers in the map
+     * @return the number of markers in the map. Constant time unless this map is a view.
      */
     public final long collectionSize() {
-        return collectionListToMarkerList(collectionList()).size();
+        if (window == null) {
+            return size;
+        }
+        return columns().values().stream()
+                .flatMap(column -> cells(column).values().stream())
+                .mapToLong(Collection::size)
+                .sum();
+    }
+
+    /**
+     * @return a number that goes up each time a coordinate or marker is added to the map or replaced.
+     * A view has the version of the map it shows, so anything computed from the map is still up to date
+     * while its version has not changed.
+     */
+    public final long version() {
+        return owner.version;
+    }
+
+    /**
+     * Adds a listener that is given every later change to the markers of the map, in the order they are made,
+     * so that anything computed from the map can be updated for each change instead of computed again.
+     * The listener is called on the thread that made the change, after the change is made.
+     * A listener added to a view is only given the changes inside the view.
+     */
+    public final void addListener(Consumer<? super Change<T>> listener) {
+        Objects.requireNonNull(listener);
+        owner.listeners.add(new Listener<>(this, listener));
+    }
+
+    /**
+     * Keeps the last {@code capacity} changes of the map, so that a consumer that was not listening when they were
+     * made, or that fell behind, can read the changes after the last version it saw with {@code changesSince}
+     * instead of computing everything again. No changes are kept by default, and 0 stops keeping them.
+     * Once the log is full, each change drops the oldest one.
+     * @throws IllegalArgumentException if capacity is negative
+     * @throws UnsupportedOperationException if this map is a view or a snapshot
+     */
+    public final void keepChanges(int capacity) {
+        checkWritable();
+        if (capacity < 0) {
+            throw new IllegalArgumentException("The capacity can not be negative");
+        }
+        changeLogCapacity = capacity;
+        while (changeLog.size() > capacity) {
+            changeLog.removeFirst();
+        }
+    }
+
+    /**
+     * Reads the change log kept with {@code keepChanges}. A view only reads the changes inside it.
+     * @param version a version of the map that anything computed from it is up to date with
+     * @return the changes made after that version, oldest first, which is empty if the version is the current one
+     * @throws IllegalArgumentException if version is negative or more than the current version
+     * @throws IllegalStateException if some changes made after version are no longer kept,
+     * so anything computed at that version has to be computed again
+     */
+    public final List<Change<T>> changesSince(long version) {
+        long currentVersion = owner.version;
+        if (version < 0 || version > currentVersion) {
+            throw new IllegalArgumentException("The version must be between 0 and " + currentVersion);
+        }
+        if (version == currentVersion) {
+            return List.of();
+        }
+        ArrayDeque<Change<T>> log = owner.changeLog;
+        if (log.isEmpty() || log.peekFirst().version() > version + 1) {
+            throw new IllegalStateException("The changes after version " + version + " are no longer kept");
+        }
+
+        //the versions in the log are consecutive, so only the changes after version are visited
+        List<Change<T>> changes = new ArrayList<>();
+        Iterator<Change<T>> newestFirst = log.descendingIterator();
+        while (newestFirst.hasNext()) {
+            Change<T> change = newestFirst.next();
+            if (change.version() <= version) {
+                break;
+            }
+            if (isInWindow(change.coordinate().x(), change.coordinate().y())) {
+                changes.add(change);
+            }
+        }
+        Collections.reverse(changes);
+        return changes;
+    }
+
+    /**
+     * Removes a listener added to this map or view with {@code addListener}
+     * @return true if the listener was removed
+     */
+    public final boolean removeListener(Consumer<? super Change<T>> listener) {
+        Objects.requireNonNull(listener);
+        return owner.listeners.removeIf(added -> added.map() == this && added.consumer() == listener);
+    }
+
+    /**
+     * @return the number of markers in the map with the given x value. Constant time unless this map is a view.
+     */
+    public final long columnSize(BigDecimal x) {
+        Objects.requireNonNull(x);
+        Column<T> column = columns().get(x);
+        if (column == null) {
+            return 0;
+        }
+        if (window == null) {
+            return column.size;
+        }
+        return cells(column).values().stream()
+                .mapToLong(Collection::size)
+                .sum();
     }
 
     /**
@@ -157,67 +450,690 @@ public class BiDimensionalMap <T> {
      */
     public final long collectionSize(Predicate <? super T> filter){
         Objects.requireNonNull(filter);
-        return collectionListToMarkerList(collectionList()).stream()
+        return stream()
                 .filter(filter)
                 .count();
     }
 
-    public String toString() {
-        return collectionListToMarkerList(collectionList()).toString();
+    /**
+     * Counts the markers in each cell of a grid over the rectangle, visiting each coordinate in the rectangle once.
+     * The rectangle is split into {@code columns} columns and {@code rows} rows of the same size. Like {@code slice},
+     * each cell includes the points along its left and bottom borders but not those along its right and top borders.
+     * @return the counts indexed by [column][row], starting from the bottom left cell
+     * @throws IllegalArgumentException if columns or rows is less than 1
+     */
+    public final long[][] gridCounts(Rectangle rectangle, int columns, int rows) {
+        rectangle.validate();
+        if (columns < 1 || rows < 1) {
+            throw new IllegalArgumentException("A grid needs at least one column and one row");
+        }
+        long[][] counts = new long[columns][rows];
+        BiDimensionalMap<T> view = view(rectangle);
+        BigDecimal width = rectangle.right().subtract(rectangle.left());
+        BigDecimal height = rectangle.top().subtract(rectangle.bottom());
+
+        X_VALUES_IN_RECTANGLE:
+        for (Map.Entry<BigDecimal, Column<T>> column : view.columns().entrySet()) {
+            int gridColumn = gridIndex(column.getKey(), rectangle.left(), width, columns);
+
+            Y_VALUES_IN_RECTANGLE:
+            for (Map.Entry<BigDecimal, Collection<T>> cell : view.cells(column.getValue()).entrySet()) {
+                counts[gridColumn][gridIndex(cell.getKey(), rectangle.bottom(), height, rows)] += cell.getValue().size();
+            }
+        }
+        return counts;
     }
 
     /**
-     * Converts the list of all collections of markers into a list of those markers
+     * @return the column or row of the grid that a value in [start, start + length) is in,
+     * which is floor((value - start) * count / length) computed without rounding
      */
-    private Collection<T> collectionListToMarkerList(List<Collection<T>> collectionList) {
-        assert collectionList!=null;
+    static int gridIndex(BigDecimal value, BigDecimal start, BigDecimal length, int count) {
+        int index = value.subtract(start).multiply(BigDecimal.valueOf(count)).divideToIntegralValue(length).intValue();
+        return Math.min(index, count - 1);
+    }
 
-        return collectionList.stream()
-                .flatMap(Collection::stream)
+    /**
+     * Gets the collections of markers at the coordinates within the radius of the center, including the coordinates
+     * exactly at the radius. Only the x columns and y values inside the square around the circle are visited,
+     * and the exact distance is only computed for those coordinates.
+     * The collections can not be modified, use the {@code Updater} to change them.
+     * @return a list of the collections, sorted by their coordinates
+     */
+    public final List<Collection<T>> within(Coordinate center, BigDecimal radius) {
+        return cellsWithin(center, radius)
+                .map(this::readOnly)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * @return the number of markers at the coordinates within the radius of the center, like {@code within}
+     */
+    public final long collectionSize(Coordinate center, BigDecimal radius) {
+        return cellsWithin(center, radius)
+                .mapToLong(Collection::size)
+                .sum();
+    }
+
+    private Stream<Collection<T>> cellsWithin(Coordinate center, BigDecimal radius) {
+        center.validate();
+        Objects.requireNonNull(radius);
+        if (radius.signum() < 0) {
+            throw new IllegalArgumentException("radius can not be negative");
+        }
+        BigDecimal squaredRadius = radius.multiply(radius);
+        BigDecimal bottom = center.y().subtract(radius);
+        BigDecimal top = center.y().add(radius);
+
+        return between(columns(), center.x().subtract(radius), center.x().add(radius)).entrySet().stream()
+                .flatMap(column -> {
+                    BigDecimal xDistance = column.getKey().subtract(center.x());
+                    BigDecimal squaredXDistance = xDistance.multiply(xDistance);
+                    return between(cells(column.getValue()), bottom, top).entrySet().stream()
+                            .filter(cell -> {
+                                BigDecimal yDistance = cell.getKey().subtract(center.y());
+                                return squaredXDistance.add(yDistance.multiply(yDistance)).compareTo(squaredRadius) <= 0;
+                            });
+                })
+                .map(Map.Entry::getValue);
+    }
+
+    /**
+     * Finds the k markers that fit a filter and are closest to the center, by straight-line distance.
+     * <p>Columns are visited outward from the x value of the center, closest first, and the cells of each column
+     * outward from its y value. The search stops as soon as the next column is farther away in x alone
+     * than the k-th closest marker found so far, so only the points near the center are visited.</p>
+     * @param k the number of markers to find, at least 1
+     * @return up to k markers, sorted from closest to farthest. Markers at the same distance are in no particular order.
+     */
+    public final List<T> nearest(Coordinate center, int k, Predicate<? super T> filter) {
+        center.validate();
+        Objects.requireNonNull(filter);
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be at least 1");
+        }
+
+        //the k closest markers so far, farthest first
+        PriorityQueue<Neighbour<T>> closest = new PriorityQueue<>(Comparator.comparing(Neighbour<T>::squaredDistance).reversed());
+        NavigableMap<BigDecimal, Column<T>> columns = columns();
+        Iterator<Map.Entry<BigDecimal, Column<T>>> rightColumns =
+                atLeast(columns, center.x()).entrySet().iterator();
+        Iterator<Map.Entry<BigDecimal, Column<T>>> leftColumns =
+                below(columns, center.x()).entrySet().iterator();
+        Map.Entry<BigDecimal, Column<T>> right = next(rightColumns);
+        Map.Entry<BigDecimal, Column<T>> left = next(leftColumns);
+
+        COLUMNS_FROM_CLOSEST:
+        while (right != null || left != null) {
+            boolean rightIsCloser = left == null
+                    || (right != null && right.getKey().subtract(center.x()).compareTo(center.x().subtract(left.getKey())) <= 0);
+            Map.Entry<BigDecimal, Column<T>> column = rightIsCloser ? right : left;
+            BigDecimal xDistance = column.getKey().subtract(center.x());
+            BigDecimal squaredXDistance = xDistance.multiply(xDistance);
+            if (isFartherThanAll(squaredXDistance, closest, k)) {
+                //every column left is at least this far away
+                break;
+            }
+
+            searchColumn(cells(column.getValue()), squaredXDistance, center.y(), k, filter, closest);
+            if (rightIsCloser) {
+                right = next(rightColumns);
+            } else {
+                left = next(leftColumns);
+            }
+        }
+
+        List<Neighbour<T>> sortedNeighbours = new ArrayList<>(closest);
+        sortedNeighbours.sort(Comparator.comparing(Neighbour::squaredDistance));
+        return sortedNeighbours.stream()
+                .map(Neighbour::value)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * A marker found by {@code nearest}, with its squared distance to the center
+     */
+    private record Neighbour<T>(T value, BigDecimal squaredDistance) { }
+
+    /**
+     * Adds the markers of a column that are closer than the k closest markers so far, visiting the cells outward from y
+     */
+    private void searchColumn(NavigableMap<BigDecimal, Collection<T>> column, BigDecimal squaredXDistance, BigDecimal y,
+                              int k, Predicate<? super T> filter, PriorityQueue<Neighbour<T>> closest) {
+        Iterator<Map.Entry<BigDecimal, Collection<T>>> aboveCells = atLeast(column, y).entrySet().iterator();
+        Iterator<Map.Entry<BigDecimal, Collection<T>>> belowCells = below(column, y).entrySet().iterator();
+        Map.Entry<BigDecimal, Collection<T>> above = next(aboveCells);
+        Map.Entry<BigDecimal, Collection<T>> below = next(belowCells);
+
+        CELLS_FROM_CLOSEST:
+        while (above != null || below != null) {
+            boolean aboveIsCloser = below == null
+                    || (above != null && above.getKey().subtract(y).compareTo(y.subtract(below.getKey())) <= 0);
+            Map.Entry<BigDecimal, Collection<T>> cell = aboveIsCloser ? above : below;
+            BigDecimal yDistance = cell.getKey().subtract(y);
+            BigDecimal squaredDistance = squaredXDistance.add(yDistance.multiply(yDistance));
+            if (isFartherThanAll(squaredDistance, closest, k)) {
+                break;
+            }
+
+            for (T value : cell.getValue()) {
+                if (filter.test(value)) {
+                    closest.add(new Neighbour<>(value, squaredDistance));
+                    if (closest.size() > k) {
+                        closest.poll();
+                    }
+                }
+            }
+            if (aboveIsCloser) {
+                above = next(aboveCells);
+            } else {
+                below = next(belowCells);
+            }
+        }
+    }
+
+    /**
+     * @return true if k markers have been found and all of them are closer than the squared distance
+     */
+    private static boolean isFartherThanAll(BigDecimal squaredDistance, PriorityQueue<? extends Neighbour<?>> closest, int k) {
+        return closest.size() == k && squaredDistance.compareTo(closest.peek().squaredDistance()) >= 0;
+    }
+
+    /**
+     * @return the entries of the map with a key of at least {@code key}, in ascending order.
+     * Unlike {@code tailMap}, the key can be outside the range of a sub map.
+     */
+    private static <V> NavigableMap<BigDecimal, V> atLeast(NavigableMap<BigDecimal, V> map, BigDecimal key) {
+        BigDecimal first = map.ceilingKey(key);
+        return first == null ? Collections.emptyNavigableMap() : map.tailMap(first, true);
+    }
+
+    /**
+     * @return the entries of the map with a key from {@code from} to {@code to}, both included.
+     * Unlike {@code subMap}, the keys can be outside the range of a sub map.
+     */
+    private static <V> NavigableMap<BigDecimal, V> between(NavigableMap<BigDecimal, V> map, BigDecimal from, BigDecimal to) {
+        BigDecimal first = map.ceilingKey(from);
+        BigDecimal last = map.floorKey(to);
+        if (first == null || last == null || first.compareTo(last) > 0) {
+            return Collections.emptyNavigableMap();
+        }
+        return map.subMap(first, true, last, true);
+    }
+
+    /**
+     * @return the entries of the map with a key less than {@code key}, in descending order
+     */
+    private static <V> NavigableMap<BigDecimal, V> below(NavigableMap<BigDecimal, V> map, BigDecimal key) {
+        BigDecimal last = map.lowerKey(key);
+        return last == null ? Collections.emptyNavigableMap() : map.headMap(last, true).descendingMap();
+    }
+
+    private static <E> E next(Iterator<E> iterator) {
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+
+    public String toString() {
+        return stream()
+                .map(String::valueOf)
+                .collect(Collectors.joining(", ", "[", "]"));
+    }
+
     /**
      * Returns a new BiDimensionalMap containing the points in the rectangle.
      * The points along the bottom and left borders of the rectangle are included,
      * but not those along the top and right borders.
+     * <p>Only the x columns in [left, right) and the y values in [bottom, top) of those columns are visited,
+     * so a slice costs O(log n + k) for k points in the rectangle.</p>
      */
     public final BiDimensionalMap<T> slice(Rectangle rectangle){
+        BiDimensionalMap<T> view = view(rectangle);
+        BiDimensionalMap<T> mapSlice = new BiDimensionalMap<>(collectionFactory);
+
+        X_VALUES_IN_RECTANGLE:
+        for (Map.Entry<BigDecimal, Column<T>> column : view.columns().entrySet()) {
+
+            Y_VALUES_IN_RECTANGLE:
+            for (Map.Entry<BigDecimal, Collection<T>> cell : view.cells(column.getValue()).entrySet()) {
+                copyToOtherMap(mapSlice, column.getKey(), cell.getKey(), cell.getValue());
+            }
+        }
+
+        return mapSlice;
+    }
+
+    /**
+     * Returns a read-only view of the points in the rectangle, with the same borders as {@code slice(Rectangle)}.
+     * <p>Unlike {@code slice}, nothing is copied: the view is backed by this map, so later changes
+     * made with the {@code Updater} show up in the view. Calling {@code getUpdater()} on a view
+     * throws an UnsupportedOperationException and the collections it returns can not be modified.</p>
+     */
+    public final BiDimensionalMap<T> view(Rectangle rectangle){
         rectangle.validate();
-        BiDimensionalMap<T> mapSlice = new BiDimensionalMap<>();
+        if (window == null) {
+            return new BiDimensionalMap<>(null, rectangle, collectionFactory, owner, frozen);
+        }
+
+        //a view of a view only shows the points inside both windows
+        BigDecimal left = rectangle.left().max(window.left());
+        BigDecimal right = rectangle.right().min(window.right());
+        BigDecimal bottom = rectangle.bottom().max(window.bottom());
+        BigDecimal top = rectangle.top().min(window.top());
+        if (left.compareTo(right) >= 0 || bottom.compareTo(top) >= 0) {
+            return new BiDimensionalMap<>(null, EMPTY_WINDOW, collectionFactory, owner, frozen);
+        }
+        return new BiDimensionalMap<>(null, new Rectangle(new Coordinate(left, bottom), new Coordinate(right, top)), collectionFactory, owner, frozen);
+    }
+
+    /**
+     * Returns a read-only copy of the map as it is now, in constant time.
+     * <p>Nothing is copied when the snapshot is made: it shares the points of this map, and this map copies
+     * what it changes the first time it is changed after the snapshot. The first write after a snapshot copies
+     * the sorted map of x values to columns in O(x values) time, without comparing keys, and the first write
+     * to each column copies that column and its collections in O(markers in the column) time.
+     * Every later write until the next snapshot changes the map in place, so a write after a snapshot costs
+     * at most one copy of the x values and one column, however many snapshots were made before it.
+     * The snapshot never changes, so it can be read by many threads without locking while this map keeps
+     * changing on another thread, as long as it is passed to them safely, for example through a final
+     * or volatile field. A snapshot of a view is a view of a snapshot of the map it shows.</p>
+     */
+    public final BiDimensionalMap<T> snapshot() {
+        if (frozen) {
+            return this;
+        }
+        if (window != null) {
+            return owner.snapshot().view(window);
+        }
+
+        BiDimensionalMap<T> snapshot = new BiDimensionalMap<>(points, null, collectionFactory, null, true);
+        snapshot.size = size;
+        snapshot.version = version;
+        pointsShared = true;
+        generation++;
+        return snapshot;
+    }
+
+    /**
+     * @return the points of the map, which for a view are the current points of the map it shows
+     */
+    private NavigableMap<BigDecimal, Column<T>> points() {
+        return owner.points;
+    }
+
+    /**
+     * Throws an UnsupportedOperationException if this map is a view or a snapshot
+     */
+    private void checkWritable() {
+        if (window != null) {
+            throw new UnsupportedOperationException("A view of a BiDimensionalMap is read-only");
+        }
+        if (frozen) {
+            throw new UnsupportedOperationException("A snapshot of a BiDimensionalMap is read-only");
+        }
+    }
+
+    /**
+     * Throws an UnsupportedOperationException if this map is a view or a snapshot,
+     * and otherwise copies the points if they are shared with a snapshot
+     */
+    private void prepareWrite() {
+        checkWritable();
+        if (pointsShared) {
+            points = new TreeMap<>(points);
+            pointsShared = false;
+        }
+    }
+
+    /**
+     * @return true if this map is not a view, or if (x, y) is inside the window of this view
+     */
+    private boolean isInWindow(BigDecimal x, BigDecimal y) {
+        if (window == null) {
+            return true;
+        }
+        boolean xInWindow = window.left().compareTo(x) <= 0 && x.compareTo(window.right()) < 0;
+        boolean yInWindow = window.bottom().compareTo(y) <= 0 && y.compareTo(window.top()) < 0;
+        return xInWindow && yInWindow;
+    }
+
+    /**
+     * @return the columns of points with an x value inside the window, or every column if this is not a view
+     */
+    private NavigableMap<BigDecimal, Column<T>> columns() {
+        if (window == null) {
+            return points;
+        }
+        return points().subMap(window.left(), true, window.right(), false);
+    }
+
+    /**
+     * @return the collections of a column with a y value inside the window, or the whole column if this is not a view
+     */
+    private NavigableMap<BigDecimal, Collection<T>> cells(NavigableMap<BigDecimal, Collection<T>> column) {
+        if (window == null) {
+            return column;
+        }
+        return column.subMap(window.bottom(), true, window.top(), false);
+    }
+
+    /**
+     * Markers are only changed through the {@code Updater} so that the marker counts stay correct
+     */
+    private Collection<T> readOnly(Collection<T> collection) {
+        return Collections.unmodifiableCollection(collection);
+    }
+
+    /**
+     * Adds the change to the size of the map and of the column at x, which must be in the map
+     */
+    private void updateSize(BigDecimal x, int change) {
+        if (change != 0) {
+            size += change;
+            points.get(x).size += change;
+        }
+    }
+
+    /**
+     * Copies the values of the collection at (x, y) to the map
+     */
+    private void copyToOtherMap(BiDimensionalMap<T> otherMap, BigDecimal x, BigDecimal y, Collection<T> values) {
+        Collection<T> collection = otherMap.cellAt(x, y);
+        int previousSize = collection.size();
+        collection.addAll(values);
+        otherMap.updateSize(x, collection.size() - previousSize);
+        otherMap.recordChange(x, y, List.of(), otherMap.tracksChanges() ? values : List.of());
+    }
+
+    /**
+     * @return true if changes are given to listeners or kept in the change log,
+     * so that the markers each change removed and added need to be found
+     */
+    private boolean tracksChanges() {
+        return !listeners.isEmpty() || changeLogCapacity > 0;
+    }
+
+    /**
+     * Moves the map to its next version after a change at (x, y), then adds the change to the change log
+     * and gives it to the listeners whose map or view shows (x, y).
+     * Callers only need to find the removed and added markers if {@code tracksChanges()}.
+     */
+    private void recordChange(BigDecimal x, BigDecimal y, Collection<T> removed, Collection<T> added) {
+        assert window == null;
+        version++;
+        if (!tracksChanges()) {
+            return;
+        }
+        //copied, since a change can be kept in the log while the collections it was made from keep changing
+        Change<T> change = new Change<>(new Coordinate(x, y), List.copyOf(removed), List.copyOf(added), version);
+        if (changeLogCapacity > 0) {
+            if (changeLog.size() == changeLogCapacity) {
+                changeLog.removeFirst();
+            }
+            changeLog.addLast(change);
+        }
+        for (Listener<T> listener : listeners) {
+            if (listener.map().isInWindow(x, y)) {
+                listener.consumer().accept(change);
+            }
+        }
+    }
+
+    /**
+     * @return the values that are not in the other collection, or all of the values if it is null
+     */
+    private static <T> List<T> missingFrom(Collection<? extends T> values, Collection<? extends T> other) {
+        if (values == null) {
+            return List.of();
+        }
+        return values.stream()
+                .filter(value -> other == null || !other.contains(value))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return the collection at (x, y), added to the map if none exists there.
+     * Finds the column and the collection with one lookup each when they exist.
+     */
+    private Collection<T> cellAt(BigDecimal x, BigDecimal y) {
+        validate(x, y);
+        return columnAt(x).computeIfAbsent(Coordinate.canonical(y), newCell);
+    }
+
+    /**
+     * @return the column at x that can be changed, added to the map if none exists there
+     * and copied first, with its collections, if it was made before the last snapshot.
+     * New keys are stored in canonical form, and later lookups with an equal BigDecimal of any scale
+     * find that one key, so every coordinate at the same x shares it.
+     */
+    private Column<T> columnAt(BigDecimal x) {
+        Column<T> column = points.computeIfAbsent(Coordinate.canonical(x), newColumn);
+        if (column.generation != generation) {
+            Column<T> copy = new Column<>(generation);
+            //a column is a SortedMap with the same ordering, so putAll copies it in linear time
+            copy.putAll(column);
+            copy.replaceAll((y, collection) -> {
+                Collection<T> collectionCopy = collectionFactory.get();
+                collectionCopy.addAll(collection);
+                return collectionCopy;
+            });
+            copy.size = column.size;
+            points.put(x, copy);
+            column = copy;
+        }
+        return column;
+    }
+
+    /**
+     * Adds each value at the coordinate given by {@code coordinateOf}, like calling the {@code Updater} for each value.
+     * <p>The values must already be sorted by their coordinates. The columns of x values that are not in the map yet
+     * are then built directly from the sorted values in linear time, without rebalancing the trees,
+     * and in parallel if {@code parallel} is true. Values at x values that already exist are added one cell at a time.</p>
+     * @return true if the markers in the map changed because of this call
+     */
+    final boolean addAllSorted(List<? extends T> sortedValues, Function<? super T, Coordinate> coordinateOf, boolean parallel) {
+        Objects.requireNonNull(sortedValues);
+        Objects.requireNonNull(coordinateOf);
+        prepareWrite();
 
-        coordinateSet().stream()
-                .filter(coordinate -> {
-                    boolean xInRectangle = isWithinBounds(rectangle.left(), coordinate.x(), rectangle.right()) ;
-                    boolean yInRectangle = isWithinBounds(rectangle.bottom(), coordinate.y(), rectangle.top());
-                    return xInRectangle && yInRectangle;
+        //the index where each run of values with the same x starts, followed by the size of the list
+        List<Integer> columnStarts = new ArrayList<>();
+        BigDecimal previousX = null;
+        for (int i = 0; i < sortedValues.size(); i++) {
+            BigDecimal x = coordinateOf.apply(sortedValues.get(i)).x();
+            if (previousX == null || previousX.compareTo(x) != 0) {
+                columnStarts.add(i);
+            }
+            previousX = x;
+        }
+        columnStarts.add(sortedValues.size());
+
+        IntStream columnIndexes = IntStream.range(0, columnStarts.size() - 1);
+        List<Column<T>> newColumns = (parallel ? columnIndexes.parallel() : columnIndexes)
+                .mapToObj(column -> {
+                    List<? extends T> columnValues = sortedValues.subList(columnStarts.get(column), columnStarts.get(column + 1));
+                    BigDecimal x = coordinateOf.apply(columnValues.get(0)).x();
+                    //existing columns are updated below, on this thread
+                    return points.containsKey(x) ? null : buildColumn(columnValues, coordinateOf);
                 })
-                .forEach(coordinate -> copyToOtherMap(mapSlice, coordinate));
+                .collect(Collectors.toList());
 
-        return mapSlice;
+        boolean changed = false;
+        List<BigDecimal> newXs = new ArrayList<>();
+        List<Column<T>> builtColumns = new ArrayList<>();
+        for (int column = 0; column < newColumns.size(); column++) {
+            List<? extends T> columnValues = sortedValues.subList(columnStarts.get(column), columnStarts.get(column + 1));
+            BigDecimal x = coordinateOf.apply(columnValues.get(0)).x();
+            Column<T> newColumn = newColumns.get(column);
+
+            if (newColumn == null) {
+                for (T value : columnValues) {
+                    changed |= put(coordinateOf.apply(value), value);
+                }
+            } else {
+                newXs.add(x);
+                builtColumns.add(newColumn);
+                newColumn.size = newColumn.values().stream().mapToInt(Collection::size).sum();
+                size += newColumn.size;
+                changed = true;
+            }
+        }
+
+        if (points.isEmpty()) {
+            //nothing was in the map, so the sorted columns can be built into it directly
+            points.putAll(new SortedRun<>(newXs, builtColumns));
+        } else {
+            for (int column = 0; column < newXs.size(); column++) {
+                points.put(newXs.get(column), builtColumns.get(column));
+            }
+        }
+
+        //the built columns are only given to the listeners once they are in the map
+        for (int column = 0; column < newXs.size(); column++) {
+            for (Map.Entry<BigDecimal, Collection<T>> cell : builtColumns.get(column).entrySet()) {
+                recordChange(newXs.get(column), cell.getKey(), List.of(), cell.getValue());
+            }
+        }
+        return changed;
     }
 
     /**
-     * @return left <= middle < right
+     * @return a new column with the values, which all have the same x value and are sorted by y value
      */
-    private boolean isWithinBounds(BigDecimal leftIncludedBoundary, BigDecimal middle, BigDecimal rightExcludedBoundary) {
-        return ( leftIncludedBoundary.compareTo(middle) <= 0 ) && ( middle.compareTo(rightExcludedBoundary) < 0 );
+    private Column<T> buildColumn(List<? extends T> columnValues, Function<? super T, Coordinate> coordinateOf) {
+        List<BigDecimal> ys = new ArrayList<>();
+        List<Collection<T>> cells = new ArrayList<>();
+
+        for (T value : columnValues) {
+            BigDecimal y = coordinateOf.apply(value).y();
+            if (ys.isEmpty() || ys.get(ys.size() - 1).compareTo(y) != 0) {
+                ys.add(y);
+                cells.add(collectionFactory.get());
+            }
+            cells.get(cells.size() - 1).add(Objects.requireNonNull(value));
+        }
+
+        Column<T> column = new Column<>(generation);
+        column.putAll(new SortedRun<>(ys, cells));
+        return column;
     }
 
     /**
-     * Copies the values from points.get(coordinate) to the map
+     * The collections of markers at each y value of one x value, with the number of markers in them.
+     * A column made in an earlier {@code generation} than its map may be shared with a snapshot.
      */
-    private void copyToOtherMap(BiDimensionalMap<T> otherMap, Coordinate coordinate) {
-        Updater updater = otherMap.getUpdater();
-        updater.setCoordinate(coordinate);
+    private static final class Column<T> extends TreeMap<BigDecimal, Collection<T>> {
 
-        for (T value : get(coordinate)){
-            updater.addValue(value);
+        private static final long serialVersionUID = 1L;
+
+        private final long generation;
+        private long size = 0;
+
+        private Column(long generation) {
+            this.generation = generation;
         }
-        updater.add();
     }
 
+    /**
+     * A sorted map of keys and values that are already in order.
+     * {@code TreeMap.putAll} builds an empty TreeMap from any SortedMap with the same ordering in linear time,
+     * using only {@code size()}, {@code comparator()} and {@code entrySet()}.
+     */
+    private static final class SortedRun<K, V> extends AbstractMap<K, V> implements SortedMap<K, V> {
+
+        private final List<K> keys;
+        private final List<V> values;
+
+        private SortedRun(List<K> keys, List<V> values) {
+            assert keys.size() == values.size();
+            this.keys = keys;
+            this.values = values;
+        }
+
+        @Override
+        public Comparator<? super K> comparator() {
+            return null;
+        }
+
+        @Override
+        public Set<Entry<K, V>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<K, V>> iterator() {
+                    return IntStream.range(0, keys.size())
+                            .mapToObj(i -> (Entry<K, V>) new SimpleImmutableEntry<>(keys.get(i), values.get(i)))
+                            .iterator();
+                }
+
+                @Override
+                public int size() {
+                    return keys.size();
+                }
+            };
+        }
+
+        @Override
+        public K firstKey() {
+            if (keys.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            return keys.get(0);
+        }
+
+        @Override
+        public K lastKey() {
+            if (keys.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            return keys.get(keys.size() - 1);
+        }
+
+        @Override
+        public SortedMap<K, V> subMap(K fromKey, K toKey) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public SortedMap<K, V> headMap(K toKey) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public SortedMap<K, V> tailMap(K fromKey) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Adds one marker at (x, y), like {@code getUpdater().setX(x).setY(y).addValue(value).add()}
+     * but without making an {@code Updater}. Nothing is allocated if a collection already exists at (x, y).
+     * @return true if the marker was not already at (x, y)
+     */
+    public final boolean put(BigDecimal x, BigDecimal y, T value){
+        Objects.requireNonNull(value);
+        prepareWrite();
+        boolean added = cellAt(x, y).add(value);
+        if (added) {
+            updateSize(x, 1);
+            recordChange(x, y, List.of(), tracksChanges() ? List.of(value) : List.of());
+        }
+        return added;
+    }
+
+    /**
+     * Adds one marker at the coordinate, like {@code put(x, y, value)}
+     * @return true if the marker was not already at the coordinate
+     */
+    public final boolean put(Coordinate coordinate, T value){
+        coordinate.validate();
+        return put(coordinate.x(), coordinate.y(), value);
+    }
+
+    /**
+     * @return a new Updater. An Updater can be used for many updates by calling {@code reset()} between them.
+     */
     public Updater getUpdater(){
+        //add() and set() copy the points shared with a snapshot, so an Updater that never writes copies nothing
+        checkWritable();
         return new Updater();
     }
 
@@ -229,12 +1145,26 @@ public class BiDimensionalMap <T> {
      * <p>  - Use {@code addValue} to add markers to a list that will be put into the {@code BiDimensionalMap}   </p>
      *<p>   - Use {@code add()} to add that list of markers to the map at the specified location
      * or {@code set()} to replace the map's  values at that location with the list of markers </p>
+     * <p>  - Use {@code reset()} to reuse the Updater for another location</p>
      */
-    public final class Updater{
+    public final class Updater extends AbstractUpdater<T> {
 
-        private BigDecimal x =  new BigDecimal(0);
-        private BigDecimal y = new BigDecimal(0);
+        private BigDecimal x = BigDecimal.ZERO;
+        private BigDecimal y = BigDecimal.ZERO;
 
+        public Updater() {
+            super(collectionFactory);
+        }
+
+        /**add a marker to values. Need to use add() or set() to add to the BiDimensionalMap
+         *
+         * @param value The (non-null) marker to be added a list of values
+         * @return this Updater
+         */
+        public final Updater addValue(T value) {
+            collect(value);
+            return this;
+        }
 
         public final Updater setCoordinate(Coordinate coordinate) {
             coordinate.validate();
@@ -255,20 +1185,15 @@ public class BiDimensionalMap <T> {
             return this;
         }
 
-        //Gives the initial instance of the collection stored at the (x,y) coordinates
-        private Supplier<Collection<T>> collectionFactory = HashSet::new;
-
-        //Stores the markers to be added to the Map with add() or set()
-        private Collection<T> values = collectionFactory.get();
-
-        /**add a marker to values. Need to use add() or set() to add to the BiDimensionalMap
-         *
-         * @param value The (non-null) marker to be added a list of values
+        /**
+         * Removes the markers added with {@code addValue} and sets the location back to (0, 0),
+         * so that the Updater can be used again without making a new one
          * @return this Updater
          */
-        public final Updater addValue(T value){
-            Objects.requireNonNull(value);
-            values.add(value);
+        public final Updater reset(){
+            x = BigDecimal.ZERO;
+            y = BigDecimal.ZERO;
+            clearValues();
             return this;
         }
 
@@ -277,15 +1202,18 @@ public class BiDimensionalMap <T> {
          * if one exists, otherwise returns null
          */
         public final Collection<T> set(){
-            Collection<T> previousValues = null;
-            if (collectionExistsAt(x, y)) {
-                previousValues = collectionFactory.get();
-                previousValues.addAll(get(x, y));
+            prepareWrite();
+            Column<T> column = columnAt(x);
+            int cellCount = column.size();
+            Collection<T> collection = column.computeIfAbsent(Coordinate.canonical(y), newCell);
+            int previousSize = collection.size();
+            Collection<T> previousValues = replaceMarkers(collection, column.size() != cellCount);
+            updateSize(x, collection.size() - previousSize);
+            if (tracksChanges()) {
+                recordChange(x, y, missingFrom(previousValues, values()), missingFrom(values(), previousValues));
             } else {
-                addCollection(x, y);
+                recordChange(x, y, List.of(), List.of());
             }
-            get(x,y).clear();
-            get(x,y).addAll(values);
             return previousValues;
         }
 
@@ -294,35 +1222,27 @@ public class BiDimensionalMap <T> {
          * @return true if the markers at (x, y) in the {@code BiDimensionalMap} changed because of this call
          */
         public final boolean add() {
-            if (!collectionExistsAt(x, y)){
-                addCollection(x, y);
-            }
-            if (values.isEmpty()) {
-                return false;
-            } else {
-                return get(x,y).addAll(values);
-            }
-        }
-
-        /**Adds a new collection to the BiDimensionalMap at (x, y) if none exists there.
-         Can safely add markers to points.get(x).get(y) or get(x,y) after running this method.
-         Used in the Updater and in the private BiDimensionalMap constructor.
-         */
-        private void addCollection(BigDecimal x, BigDecimal y){
             validate(x, y);
+            prepareWrite();
+            Column<T> column = columnAt(x);
+            int cellCount = column.size();
+            Collection<T> collection = column.computeIfAbsent(Coordinate.canonical(y), newCell);
+            boolean newCoordinate = column.size() != cellCount;
 
-            if (!points.containsKey(x)){
-                //add the map that will store all of the y maps
-                SortedMap<BigDecimal, Collection<T> >  newMap = new TreeMap<>();
-                points.put(x, newMap);
-            } else {
-                //Map exists at x! so do nothing
-                //can move on to checking for a y at this location
-            }
-            if (!collectionExistsAt(x, y)) {
-                points.get(x).put(y, collectionFactory.get());
+            if (values().isEmpty()) {
+                if (newCoordinate) {
+                    recordChange(x, y, List.of(), List.of());
+                }
+                return false;
             } else {
-                //Collection exists at (x, y)! do nothing
+                List<T> added = tracksChanges() ? missingFrom(values(), collection) : List.of();
+                int previousSize = collection.size();
+                boolean changed = addMarkers(collection);
+                updateSize(x, collection.size() - previousSize);
+                if (changed || newCoordinate) {
+                    recordChange(x, y, List.of(), added);
+                }
+                return changed;
             }
         }
     }
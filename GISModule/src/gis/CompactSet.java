@@ -0,0 +1,148 @@
+package gis;
+
+import java.util.*;
+
+/**
+ * A set for the markers at one coordinate, which usually holds a single marker.
+ * <p>One element is stored directly in the set, up to {@code MAX_ARRAY_SIZE} elements are stored in a small array
+ * that is searched linearly, and larger sets are upgraded to a {@code HashSet}. A set with one marker takes
+ * one small object instead of the {@code HashSet}, {@code HashMap}, table and node of a {@code HashSet}.</p>
+ * <p>Use it as the cells of a map with {@code new BiDimensionalMap<>(CompactSet::new)}.</p>
+ * @param <E> the type of the elements
+ */
+public final class CompactSet<E> extends AbstractSet<E> {
+
+    static final int MAX_ARRAY_SIZE = 8;
+
+    /**
+     * Nothing if size is 0, the element if size is 1, an Object[] of the elements if size is larger,
+     * or a HashSet of the elements if hashed is true
+     */
+    private Object elements = null;
+    private int size = 0;
+    private boolean hashed = false;
+
+    public CompactSet() { }
+
+    @Override
+    public int size() {
+        return hashed ? hashSet().size() : size;
+    }
+
+    @Override
+    public boolean contains(Object element) {
+        if (hashed) {
+            return hashSet().contains(element);
+        }
+        return indexOf(element) >= 0;
+    }
+
+    @Override
+    public boolean add(E element) {
+        if (hashed) {
+            return hashSet().add(element);
+        }
+        if (indexOf(element) >= 0) {
+            return false;
+        }
+
+        if (size == 0) {
+            elements = element;
+        } else if (size == 1) {
+            elements = new Object[] {elements, element, null, null};
+        } else if (size < MAX_ARRAY_SIZE) {
+            Object[] array = (Object[]) elements;
+            if (size == array.length) {
+                array = Arrays.copyOf(array, Math.min(MAX_ARRAY_SIZE, 2 * array.length));
+                elements = array;
+            }
+            array[size] = element;
+        } else {
+            HashSet<Object> hashSet = new HashSet<>(Arrays.asList((Object[]) elements));
+            hashSet.add(element);
+            elements = hashSet;
+            hashed = true;
+            return true;
+        }
+        size++;
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        elements = null;
+        size = 0;
+        hashed = false;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        if (hashed) {
+            return hashSet().iterator();
+        }
+        return new Iterator<>() {
+
+            private int next = 0;
+            private boolean canRemove = false;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public E next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                canRemove = true;
+                return elementAt(next++);
+            }
+
+            @Override
+            public void remove() {
+                if (!canRemove) {
+                    throw new IllegalStateException();
+                }
+                canRemove = false;
+                removeAt(--next);
+            }
+        };
+    }
+
+    /**
+     * @return the index of the element while it is not hashed, or -1 if it is not in the set
+     */
+    private int indexOf(Object element) {
+        for (int i = 0; i < size; i++) {
+            if (Objects.equals(elementAt(i), element)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private E elementAt(int index) {
+        return (E) (size == 1 ? elements : ((Object[]) elements)[index]);
+    }
+
+    private void removeAt(int index) {
+        if (size == 1) {
+            elements = null;
+        } else {
+            Object[] array = (Object[]) elements;
+            System.arraycopy(array, index + 1, array, index, size - index - 1);
+            array[size - 1] = null;
+            if (size == 2) {
+                elements = array[0];
+            }
+        }
+        size--;
+    }
+
+    @SuppressWarnings("unchecked")
+    private HashSet<E> hashSet() {
+        return (HashSet<E>) elements;
+    }
+}
@@ -0,0 +1,249 @@
+package gis;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * A thread-safe version of {@code BiDimensionalMap} with the same {@code getUpdater()}, {@code get}
+ * and {@code slice} methods, so one thread can add markers while others query the map.
+ * <p>Points are stored in a {@code ConcurrentSkipListMap} of {@code ConcurrentSkipListMap}s, and the
+ * markers at each coordinate are an immutable set that the {@code Updater} replaces atomically.
+ * Reads never block: {@code get} returns the set of markers at the time of the call, and an update
+ * to a coordinate is seen by readers either fully or not at all.</p>
+ * @param <T> the type for markers stored at each coordinate point.
+ */
+public class ConcurrentBiDimensionalMap<T> {
+
+    /**
+     * Markers stored in a Sorted Map of Sorted Maps, the same way as in {@code BiDimensionalMap}:
+     * points.get(x) is the map of all sets of markers at the y locations for that x
+     */
+    private final ConcurrentNavigableMap<BigDecimal, ConcurrentNavigableMap<BigDecimal, Set<T>>> points = new ConcurrentSkipListMap<>();
+
+    //The number of markers in the map. Updated right after each change to a set of markers
+    private final AtomicLong size = new AtomicLong();
+
+    public ConcurrentBiDimensionalMap() { }
+
+    /**
+     * Gets the markers at the given (x, y) coordinates.
+     * @return an immutable set of the markers if a collection exists there, or null if none exists
+     */
+    public final Collection<T> get(BigDecimal x, BigDecimal y) {
+        Objects.requireNonNull(x);
+        Objects.requireNonNull(y);
+        Map<BigDecimal, Set<T>> column = points.get(x);
+        return column == null ? null : column.get(y);
+    }
+
+    /**
+     * Gets the markers at the given coordinate.
+     * @return an immutable set of the markers if a collection exists there, or null if none exists
+     */
+    public final Collection<T> get(Coordinate coordinate) {
+        coordinate.validate();
+        return get(coordinate.x(), coordinate.y());
+    }
+
+    /**
+     * @return the x coordinates in the map, or an empty set if none exist.
+     */
+    public final Set<BigDecimal> xSet() {
+        return Collections.unmodifiableSet(points.keySet());
+    }
+
+    /**
+     * @return the y coordinates in the map corresponding to the given x
+     */
+    public final Set<BigDecimal> ySet(BigDecimal x) {
+        Objects.requireNonNull(x);
+        Map<BigDecimal, Set<T>> column = points.get(x);
+        if (column == null) {
+            throw new IllegalArgumentException("Given x value does not exist yet in the map");
+        }
+        return Collections.unmodifiableSet(column.keySet());
+    }
+
+    /**
+     * @return the list of sorted coordinates, or an empty list if none exist
+     */
+    public final List<Coordinate> coordinateSet() {
+        List<Coordinate> coordinateList = new ArrayList<>();
+
+        X_VALUES_IN_POINTS:
+        for (Map.Entry<BigDecimal, ConcurrentNavigableMap<BigDecimal, Set<T>>> column : points.entrySet()) {
+
+            Y_VALUES_FOR_EACH_X:
+            for (BigDecimal y : column.getValue().keySet()) {
+                coordinateList.add(new Coordinate(column.getKey(), y));
+            }
+        }
+        return coordinateList;
+    }
+
+    /**
+     * @return a list of the sets of markers in the map, sorted by their coordinates.
+     */
+    public final List<Collection<T>> collectionList() {
+        return points.values().stream()
+                .flatMap(column -> column.values().stream())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return the number of markers in the map. While an update is being applied,
+     * the count may not include it yet.
+     */
+    public final long collectionSize() {
+        return size.get();
+    }
+
+    /**
+     * @return the number of markers in the map that fit a filter
+     */
+    public final long collectionSize(Predicate<? super T> filter) {
+        Objects.requireNonNull(filter);
+        return points.values().stream()
+                .flatMap(column -> column.values().stream())
+                .flatMap(Collection::stream)
+                .filter(filter)
+                .count();
+    }
+
+    /**
+     * Returns a new BiDimensionalMap containing the points in the rectangle.
+     * The points along the bottom and left borders of the rectangle are included,
+     * but not those along the top and right borders.
+     * <p>The markers copied at each coordinate are all from the same update, but updates
+     * made to other coordinates while slicing may or may not be included.</p>
+     */
+    public final BiDimensionalMap<T> slice(Rectangle rectangle) {
+        rectangle.validate();
+        BiDimensionalMap<T> mapSlice = new BiDimensionalMap<>();
+
+        X_VALUES_IN_RECTANGLE:
+        for (Map.Entry<BigDecimal, ConcurrentNavigableMap<BigDecimal, Set<T>>> column
+                : points.subMap(rectangle.left(), true, rectangle.right(), false).entrySet()) {
+
+            Y_VALUES_IN_RECTANGLE:
+            for (Map.Entry<BigDecimal, Set<T>> cell
+                    : column.getValue().subMap(rectangle.bottom(), true, rectangle.top(), false).entrySet()) {
+                BiDimensionalMap<T>.Updater updater = mapSlice.getUpdater().setX(column.getKey()).setY(cell.getKey());
+                cell.getValue().forEach(updater::addValue);
+                updater.add();
+            }
+        }
+        return mapSlice;
+    }
+
+    public String toString() {
+        return collectionList().stream()
+                .flatMap(Collection::stream)
+                .collect(Collectors.toList())
+                .toString();
+    }
+
+    /**
+     * @return a new Updater. Each Updater should only be used by one thread.
+     */
+    public Updater getUpdater() {
+        return new Updater();
+    }
+
+    /**
+     * Updater class used to add markers to the {@code ConcurrentBiDimensionalMap}, the same way as
+     * the {@code Updater} of {@code BiDimensionalMap}.
+     * <p>  - Use {@code setCoordinate(), setX()}, or {@code setY()} to set what coordinate point the markers will be added to, default is (0, 0).</p>
+     * <p>  - Use {@code addValue} to add markers to a list that will be put into the map</p>
+     * <p>  - Use {@code add()} to add that list of markers to the map at the specified location
+     * or {@code set()} to replace the map's values at that location with the list of markers </p>
+     * Each call to {@code add()} or {@code set()} changes the markers at the location in one atomic step.
+     */
+    public final class Updater extends AbstractUpdater<T> {
+
+        private BigDecimal x = BigDecimal.ZERO;
+        private BigDecimal y = BigDecimal.ZERO;
+
+        public Updater() {
+            super(HashSet::new);
+        }
+
+        /**add a marker to values. Need to use add() or set() to add to the map
+         *
+         * @param value The (non-null) marker to be added a list of values
+         * @return this Updater
+         */
+        public final Updater addValue(T value) {
+            collect(value);
+            return this;
+        }
+
+        public final Updater setCoordinate(Coordinate coordinate) {
+            coordinate.validate();
+            setX(coordinate.x());
+            setY(coordinate.y());
+            return this;
+        }
+
+        public final Updater setX(BigDecimal x) {
+            this.x = Objects.requireNonNull(x);
+            return this;
+        }
+
+        public final Updater setY(BigDecimal y) {
+            this.y = Objects.requireNonNull(y);
+            return this;
+        }
+
+        /**Replace the markers at (x, y) in the map with the markers added with {@code addValue(T value)}
+         * @return the previous markers at the (x, y) location in the map if any existed, otherwise returns null
+         */
+        public final Collection<T> set() {
+            Set<T> newValues = Set.copyOf(values());
+            List<Set<T>> previousValues = new ArrayList<>(1);
+
+            column().compute(y, (key, currentValues) -> {
+                //compute may retry the function, only the last call is the one that is applied
+                previousValues.clear();
+                previousValues.add(currentValues);
+                return newValues;
+            });
+            Set<T> previous = previousValues.get(0);
+            size.addAndGet(newValues.size() - (previous == null ? 0 : previous.size()));
+            return previous;
+        }
+
+        /**Add the markers at (x, y) in the map with the markers added with {@code addValue(T value)}.
+         * Adds an empty set if no values have been added.
+         * @return true if the markers at (x, y) in the map changed because of this call
+         */
+        public final boolean add() {
+            long[] addedCount = new long[1];
+
+            column().compute(y, (key, currentValues) -> {
+                if (currentValues == null) {
+                    addedCount[0] = values().size();
+                    return Set.copyOf(values());
+                }
+                Set<T> combined = new HashSet<>(currentValues);
+                combined.addAll(values());
+                addedCount[0] = combined.size() - currentValues.size();
+                return addedCount[0] == 0 ? currentValues : Set.copyOf(combined);
+            });
+            size.addAndGet(addedCount[0]);
+            return addedCount[0] > 0;
+        }
+
+        /**
+         * @return the column at x, added to the map if it did not exist
+         */
+        private ConcurrentNavigableMap<BigDecimal, Set<T>> column() {
+            return points.computeIfAbsent(x, key -> new ConcurrentSkipListMap<>());
+        }
+    }
+}
@@ -1,9 +1,6 @@
 package gis;
 
-import org.junit.jupiter.params.shadow.com.univocity.parsers.common.DataValidationException;
-
 import java.math.BigDecimal;
-import java.util.Comparator;
 import java.util.Objects;
 
 /**
@@ -11,18 +8,46 @@ import java.util.Objects;
  *Used to set a location in the Geographic Information System.
  *@param x the longitude (horizontal position) of the coordinate
  *@param y the latitude (vertical position) of the coordinate
+ *<p>x and y are stored in canonical form (see {@code canonical}), so coordinates at the same point are equal
+ * and have the same hash code even if they were made with different scales, like 1.0 and 1.</p>
  */
 public record Coordinate(BigDecimal x, BigDecimal y) implements Comparable<Coordinate>{
 
+    /**
+     * Coordinates are validated when they are made, so a Coordinate never has a null x or y
+     * @throws NullPointerException if x or y is null
+     */
+    public Coordinate {
+        x = canonical(Objects.requireNonNull(x, "x can not be null"));
+        y = canonical(Objects.requireNonNull(y, "y can not be null"));
+    }
+
+    /**
+     * Gives one form to every BigDecimal with the same value: trailing zeros after the decimal point are removed,
+     * and whole numbers have a scale of 0. For example 1.50 becomes 1.5, and 1.0 and 1E+1 become 1 and 10.
+     * @return the value if it is already canonical, otherwise the canonical BigDecimal with the same value
+     */
+    public static BigDecimal canonical(BigDecimal value) {
+        if (value.scale() == 0) {
+            return value;
+        }
+        BigDecimal stripped = value.stripTrailingZeros();
+        if (stripped.scale() < 0) {
+            return stripped.setScale(0);
+        }
+        return stripped.scale() == value.scale() ? value : stripped;
+    }
+
+    /**
+     * Ensures the coordinate is not null. Its x and y were already checked when it was made.
+     * @return the valid coordinate
+     */
     public static final Coordinate validate(Coordinate coordinate){
-        Objects.requireNonNull(coordinate);
-        Objects.requireNonNull(coordinate.x);
-        Objects.requireNonNull(coordinate.y);
-        return coordinate;
+        return Objects.requireNonNull(coordinate);
     }
 
     public final Coordinate validate(){
-        return Coordinate.validate(this);
+        return this;
     }
 
     public static final Coordinate ORIGIN = new Coordinate(new BigDecimal(0),new BigDecimal(0));
@@ -34,17 +59,11 @@ public record Coordinate(BigDecimal x, BigDecimal y) implements Comparable<Coord
      */
     @Override
     public int compareTo(Coordinate other) {
-        this.validate();
-        other.validate();
-
-        Comparator<Coordinate> compareX = Comparator.comparing(Coordinate::x);
-        Comparator<Coordinate> compareY = Comparator.comparing(Coordinate::y);
-
-        return compareX.thenComparing(compareY).compare(this, other);
+        int compareX = x.compareTo(other.x);
+        return compareX != 0 ? compareX : y.compareTo(other.y);
     }
 
     public String toSimpleString(){
-        this.validate();
         return "(" + x + ", " + y + ")";
     }
 }
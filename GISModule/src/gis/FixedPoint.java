@@ -0,0 +1,60 @@
+package gis;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Objects;
+
+/**
+ * Converts coordinate values between {@code BigDecimal} and fixed-point {@code long} values
+ * with a set number of decimal places.
+ * <p>For example, with a scale of 6 (microdegrees) the value 41.5043 is stored as 41504300.</p>
+ * @param scale the number of decimal places kept in the fixed-point values
+ */
+public record FixedPoint(int scale) {
+
+    public static final FixedPoint MICRODEGREES = new FixedPoint(6);
+
+    public FixedPoint {
+        if (scale < 0) {
+            throw new IllegalArgumentException("scale can not be negative");
+        }
+    }
+
+    /**
+     * @return the fixed-point value of {@code value}
+     * @throws IllegalArgumentException if the value has more decimal places than the scale
+     * or does not fit in a long
+     */
+    public long toLong(BigDecimal value) {
+        Objects.requireNonNull(value);
+        try {
+            return value.setScale(scale).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException(value + " can not be stored as a fixed-point value with scale " + scale, e);
+        }
+    }
+
+    /**
+     * @return the fixed-point value of {@code value}, rounding extra decimal places with {@code roundingMode}
+     * @throws IllegalArgumentException if the value does not fit in a long
+     */
+    public long toLong(BigDecimal value, RoundingMode roundingMode) {
+        Objects.requireNonNull(value);
+        Objects.requireNonNull(roundingMode);
+        return toLong(value.setScale(scale, roundingMode));
+    }
+
+    /**
+     * @return the {@code BigDecimal} value of a fixed-point value
+     */
+    public BigDecimal toBigDecimal(long value) {
+        return BigDecimal.valueOf(value, scale);
+    }
+
+    /**
+     * @return the coordinate at the fixed-point location (x, y)
+     */
+    public Coordinate toCoordinate(long x, long y) {
+        return new Coordinate(toBigDecimal(x), toBigDecimal(y));
+    }
+}
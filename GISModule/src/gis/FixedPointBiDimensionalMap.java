@@ -0,0 +1,250 @@
+package gis;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * A 2D map like {@code BiDimensionalMap} that keys its points by fixed-point {@code long} coordinates
+ * instead of {@code BigDecimal}s. Lookups compare longs instead of calling {@code BigDecimal.compareTo},
+ * and each key is a small {@code Long} instead of a {@code BigDecimal} and its {@code BigInteger}.
+ * <p>Coordinates are converted with the map's {@code FixedPoint}, so they can not have more decimal
+ * places than its scale. Add landmarks with the {@code Updater}</p>
+ * @param <T> the type for markers stored at each coordinate point.
+ */
+public class FixedPointBiDimensionalMap<T> {
+
+    /**
+     * Markers stored in a Sorted Map of Sorted Maps, the same way as in {@code BiDimensionalMap}:
+     * points.get(x) is the map of all collections of markers at the y locations for that x
+     */
+    private final NavigableMap<Long, NavigableMap<Long, Collection<T>>> points = new TreeMap<>();
+
+    //The number of markers in the map, kept up to date by the Updater
+    private long size = 0;
+
+    private final FixedPoint fixedPoint;
+
+    /**
+     * Creates a map that stores coordinates as microdegrees
+     */
+    public FixedPointBiDimensionalMap() {
+        this(FixedPoint.MICRODEGREES);
+    }
+
+    public FixedPointBiDimensionalMap(FixedPoint fixedPoint) {
+        this.fixedPoint = Objects.requireNonNull(fixedPoint);
+    }
+
+    /**
+     * @return the conversion used between coordinates and the fixed-point keys of this map
+     */
+    public final FixedPoint fixedPoint() {
+        return fixedPoint;
+    }
+
+    /**
+     * Gets the collection of markers at the given fixed-point (x, y) location.
+     * @return The collection if it exists, or null if no collection exists there
+     */
+    public final Collection<T> get(long x, long y) {
+        NavigableMap<Long, Collection<T>> column = points.get(x);
+        return column == null ? null : column.get(y);
+    }
+
+    /**
+     * Gets the collection of markers at the given coordinate.
+     * @return The collection if it exists, or null if no collection exists there
+     * @throws IllegalArgumentException if the coordinate has more decimal places than the scale of this map
+     */
+    public final Collection<T> get(Coordinate coordinate) {
+        coordinate.validate();
+        return get(fixedPoint.toLong(coordinate.x()), fixedPoint.toLong(coordinate.y()));
+    }
+
+    /**
+     * @return the fixed-point x coordinates in the map, or an empty set if none exist.
+     */
+    public final Set<Long> xSet() {
+        return Collections.unmodifiableSet(points.keySet());
+    }
+
+    /**
+     * @return the fixed-point y coordinates in the map corresponding to the given x
+     */
+    public final Set<Long> ySet(long x) {
+        NavigableMap<Long, Collection<T>> column = points.get(x);
+        if (column == null) {
+            throw new IllegalArgumentException("Given x value does not exist yet in the map");
+        }
+        return Collections.unmodifiableSet(column.keySet());
+    }
+
+    /**
+     * @return the list of sorted coordinates, or an empty list if none exist
+     */
+    public final List<Coordinate> coordinateSet() {
+        List<Coordinate> coordinateList = new ArrayList<>();
+
+        X_VALUES_IN_POINTS:
+        for (Map.Entry<Long, NavigableMap<Long, Collection<T>>> column : points.entrySet()) {
+
+            Y_VALUES_FOR_EACH_X:
+            for (Long y : column.getValue().keySet()) {
+                coordinateList.add(fixedPoint.toCoordinate(column.getKey(), y));
+            }
+        }
+        return coordinateList;
+    }
+
+    /**
+     * @return a list of contents from points, implicitly sorted by their coordinates.
+     */
+    public final List<Collection<T>> collectionList() {
+        return points.values().stream()
+                .flatMap(column -> column.values().stream())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return the number of markers in the map, in constant time
+     */
+    public final long collectionSize() {
+        return size;
+    }
+
+    /**
+     * @return the number of markers in the map that fit a filter
+     */
+    public final long collectionSize(Predicate<? super T> filter) {
+        Objects.requireNonNull(filter);
+        return collectionList().stream()
+                .flatMap(Collection::stream)
+                .filter(filter)
+                .count();
+    }
+
+    /**
+     * Returns a new map containing the points in the rectangle.
+     * The points along the bottom and left borders of the rectangle are included,
+     * but not those along the top and right borders.
+     */
+    public final FixedPointBiDimensionalMap<T> slice(Rectangle rectangle) {
+        rectangle.validate();
+        //rounding both borders up keeps exactly the points with left <= x < right and bottom <= y < top
+        long left = fixedPoint.toLong(rectangle.left(), RoundingMode.CEILING);
+        long right = fixedPoint.toLong(rectangle.right(), RoundingMode.CEILING);
+        long bottom = fixedPoint.toLong(rectangle.bottom(), RoundingMode.CEILING);
+        long top = fixedPoint.toLong(rectangle.top(), RoundingMode.CEILING);
+
+        FixedPointBiDimensionalMap<T> mapSlice = new FixedPointBiDimensionalMap<>(fixedPoint);
+        if (left >= right || bottom >= top) {
+            return mapSlice;
+        }
+
+        X_VALUES_IN_RECTANGLE:
+        for (Map.Entry<Long, NavigableMap<Long, Collection<T>>> column : points.subMap(left, true, right, false).entrySet()) {
+
+            Y_VALUES_IN_RECTANGLE:
+            for (Map.Entry<Long, Collection<T>> cell : column.getValue().subMap(bottom, true, top, false).entrySet()) {
+                Updater updater = mapSlice.getUpdater().setX(column.getKey()).setY(cell.getKey());
+                cell.getValue().forEach(updater::addValue);
+                updater.add();
+            }
+        }
+        return mapSlice;
+    }
+
+    public String toString() {
+        return collectionList().stream()
+                .flatMap(Collection::stream)
+                .collect(Collectors.toList())
+                .toString();
+    }
+
+    public Updater getUpdater() {
+        return new Updater();
+    }
+
+    /**
+     * Updater class used to add markers to the {@code FixedPointBiDimensionalMap}, the same way as
+     * the {@code Updater} of {@code BiDimensionalMap}.
+     * <p>  - Use {@code setCoordinate(), setX()}, or {@code setY()} to set what location the markers will be added to, default is (0, 0).</p>
+     * <p>  - Use {@code addValue} to add markers to a list that will be put into the map</p>
+     * <p>  - Use {@code add()} to add that list of markers to the map at the specified location
+     * or {@code set()} to replace the map's values at that location with the list of markers </p>
+     */
+    public final class Updater extends AbstractUpdater<T> {
+
+        private long x = 0;
+        private long y = 0;
+
+        public Updater() {
+            super(HashSet::new);
+        }
+
+        /**add a marker to values. Need to use add() or set() to add to the map
+         *
+         * @param value The (non-null) marker to be added a list of values
+         * @return this Updater
+         */
+        public final Updater addValue(T value) {
+            collect(value);
+            return this;
+        }
+
+        /**
+         * @throws IllegalArgumentException if the coordinate has more decimal places than the scale of the map
+         */
+        public final Updater setCoordinate(Coordinate coordinate) {
+            coordinate.validate();
+            setX(fixedPoint.toLong(coordinate.x()));
+            setY(fixedPoint.toLong(coordinate.y()));
+            return this;
+        }
+
+        public final Updater setX(long x) {
+            this.x = x;
+            return this;
+        }
+
+        public final Updater setY(long y) {
+            this.y = y;
+            return this;
+        }
+
+        /**Replace the markers at (x, y) in the map with the markers added with {@code addValue(T value)}
+         * @return the previous Collection at the (x, y) location in the map if one exists, otherwise returns null
+         */
+        public final Collection<T> set() {
+            NavigableMap<Long, Collection<T>> column = column();
+            int cellCount = column.size();
+            Collection<T> cell = column.computeIfAbsent(y, key -> new HashSet<>());
+            int previousSize = cell.size();
+            Collection<T> previousValues = replaceMarkers(cell, column.size() != cellCount);
+            size += cell.size() - previousSize;
+            return previousValues;
+        }
+
+        /**Add the markers at (x, y) in the map with the markers added with {@code addValue(T value)}.
+         * Adds an empty collection if no values have been added.
+         * @return true if the markers at (x, y) in the map changed because of this call
+         */
+        public final boolean add() {
+            Collection<T> cell = column().computeIfAbsent(y, key -> new HashSet<>());
+            int previousSize = cell.size();
+            boolean changed = addMarkers(cell);
+            size += cell.size() - previousSize;
+            return changed;
+        }
+
+        /**
+         * @return the column at x, added to the map if it did not exist
+         */
+        private NavigableMap<Long, Collection<T>> column() {
+            return points.computeIfAbsent(x, key -> new TreeMap<>());
+        }
+    }
+}
@@ -1,9 +1,10 @@
 package gis;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
-import java.util.Objects;
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.ToLongFunction;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -11,14 +12,98 @@ import java.util.stream.Stream;
  * Stores InterestPoints in a BiDimensionalMap.
  * To use, create a {@code Builder}, then {@code add( interestPoint)} to the builder,
  * then put it in the  BiDimensionalMap with {@code build()}.
+ * <p>An InterestPoints is an immutable snapshot of the builder's points when it was built, so it can be queried
+ * by many threads without locking while more points are added to the builder on another thread.</p>
  */
 public final class InterestPoints <M extends Enum<M>> {
 
     private final BiDimensionalMap<InterestPoint> points;
 
-    private InterestPoints(Builder builder) {
+    /**
+     * The same interest points as {@code points}, partitioned by their marker,
+     * so that counting a marker only looks at the points with that marker
+     */
+    private final Map<M, BiDimensionalMap<InterestPoint>> markerIndex;
+
+    /**
+     * Frozen summed-area tables of the markers, made by {@code build()} when the builder
+     * uses {@code CountIndex.PREFIX_SUMS}. Markers without a table are counted with {@code markerIndex}.
+     */
+    private final Map<M, PrefixSumCounts> prefixSums;
+
+    //An STR-packed R-tree of every point, made by {@code build()} when the builder uses {@code CountIndex.STR_TREE}
+    private final PackedRTree tree;
+
+    /**
+     * The pool that counts the rectangles of a region in parallel, or null if they are counted on the calling thread.
+     * Regions with fewer than {@code parallelThreshold} rectangles are always counted on the calling thread.
+     */
+    private final ForkJoinPool countPool;
+    private final int parallelThreshold;
+
+    /**
+     * How {@code count(RectilinearRegion, M)} counts the points with a marker in each rectangle,
+     * and how {@code slice(Rectangle)} finds the points in a rectangle
+     */
+    public enum CountIndex {
+        /** Counts the points in a view of the map of each marker. */
+        MARKER_MAPS,
+        /**
+         * Counts with a summed-area table per marker, made once by {@code build()}, without visiting any points.
+         * Best for datasets that do not change. Markers with too many distinct x and y values for a table
+         * are counted with their map instead, see {@code Builder.maxTableSize} and {@code prefixSumMarkers()}.
+         */
+        PREFIX_SUMS,
+        /**
+         * Counts and slices with an R-tree of every point, packed once by {@code build()} with the Sort-Tile-Recursive
+         * algorithm. Unlike the maps, which are sorted by x first, the tree only visits the points near the rectangle
+         * in both x and y, so it is best for clustered datasets and tall thin rectangles that do not change.
+         */
+        STR_TREE
+    }
+
+    private InterestPoints(Builder<M> builder) {
         assert(builder!=null);
-        this.points = builder.points;
+        this.points = builder.points.snapshot();
+        this.markerIndex = builder.markerIndex == null ? Collections.emptyMap() : snapshots(builder.markerIndex);
+        this.prefixSums = builder.countIndex == CountIndex.PREFIX_SUMS
+                ? prefixSums(markerIndex, builder.maxTableSize) : Collections.emptyMap();
+        this.tree = builder.countIndex == CountIndex.STR_TREE ? tree(points, markerIndex) : null;
+        this.countPool = builder.countPool;
+        this.parallelThreshold = builder.parallelThreshold;
+    }
+
+    private static <M extends Enum<M>> Map<M, BiDimensionalMap<InterestPoint>> snapshots(EnumMap<M, BiDimensionalMap<InterestPoint>> markerIndex) {
+        EnumMap<M, BiDimensionalMap<InterestPoint>> snapshots = new EnumMap<>(markerIndex);
+        snapshots.replaceAll((marker, markerPoints) -> markerPoints.snapshot());
+        return Collections.unmodifiableMap(snapshots);
+    }
+
+    private static <M> Map<M, PrefixSumCounts> prefixSums(Map<M, BiDimensionalMap<InterestPoint>> markerIndex, long maxTableSize) {
+        Map<M, PrefixSumCounts> prefixSums = new HashMap<>();
+        markerIndex.forEach((marker, markerPoints) -> {
+            PrefixSumCounts counts = PrefixSumCounts.of(markerPoints, maxTableSize);
+            if (counts != null) {
+                prefixSums.put(marker, counts);
+            }
+        });
+        return prefixSums;
+    }
+
+    private static <M extends Enum<M>> PackedRTree tree(BiDimensionalMap<InterestPoint> points, Map<M, ?> markerIndex) {
+        int markerCount = markerIndex.keySet().stream()
+                .findAny()
+                .map(marker -> marker.getDeclaringClass().getEnumConstants().length)
+                .orElse(0);
+        return PackedRTree.of(points, markerCount);
+    }
+
+    /**
+     * @return the markers that are counted with a summed-area table. With {@code CountIndex.PREFIX_SUMS},
+     * the other markers had too many distinct x and y values for a table and are counted with their map instead.
+     */
+    public final Set<M> prefixSumMarkers() {
+        return Collections.unmodifiableSet(prefixSums.keySet());
     }
 
     /**
@@ -41,52 +126,312 @@ public final class InterestPoints <M extends Enum<M>> {
         Objects.requireNonNull(region);
         Objects.requireNonNull(marker);
 
-        Stream<InterestPoint> pointsInRegion = region.getRectangles().stream()
-                //maps the stream of rectangles to
-                // a stream of collections of interestPoints inside each rectangle
-                .flatMap(rectangle -> points.slice(rectangle).collectionList().stream())
-                //maps the stream of collections of interestPoints to a stream of those points
-                .flatMap(Collection::stream);
+        ToLongFunction<Rectangle> rectangleCount = rectangleCount(marker);
+        if (rectangleCount == null) {
+            return 0;
+        }
+        //the rectangles of a region do not overlap, so their counts can be added up in any order
+        Rectangle[] rectangles = region.getRectangles().toArray(new Rectangle[0]);
+        if (countPool != null && rectangles.length >= parallelThreshold) {
+            return countPool.invoke(new CountTask(rectangles, 0, rectangles.length, rectangleCount, parallelThreshold));
+        }
+        return countSequentially(rectangles, 0, rectangles.length, rectangleCount);
+    }
 
-        return pointsInRegion
-                .filter(interestPoint -> interestPoint.hasMarker(marker))
-                .count();
+    /**
+     * @return the function that counts the points with the marker in a rectangle,
+     * or null if there are no points with the marker
+     */
+    private ToLongFunction<Rectangle> rectangleCount(M marker) {
+        if (tree != null) {
+            return rectangle -> tree.count(rectangle, marker);
+        }
+
+        PrefixSumCounts counts = prefixSums.get(marker);
+        if (counts != null) {
+            return counts::count;
+        }
+
+        BiDimensionalMap<InterestPoint> markerPoints = markerIndex.get(marker);
+        if (markerPoints == null) {
+            return null;
+        }
+        //only the points with the marker are in markerPoints, so the points in each rectangle just need to be counted
+        return rectangle -> markerPoints.view(rectangle).collectionSize();
+    }
+
+    private static long countSequentially(Rectangle[] rectangles, int start, int end, ToLongFunction<Rectangle> rectangleCount) {
+        long count = 0;
+        for (int i = start; i < end; i++) {
+            count += rectangleCount.applyAsLong(rectangles[i]);
+        }
+        return count;
     }
 
+    /**
+     * Counts the rectangles in [start, end) by splitting them in half until at most {@code threshold} are left
+     */
+    private static final class CountTask extends RecursiveTask<Long> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Rectangle[] rectangles;
+        private final int start;
+        private final int end;
+        private final ToLongFunction<Rectangle> rectangleCount;
+        private final int threshold;
+
+        private CountTask(Rectangle[] rectangles, int start, int end, ToLongFunction<Rectangle> rectangleCount, int threshold) {
+            this.rectangles = rectangles;
+            this.start = start;
+            this.end = end;
+            this.rectangleCount = rectangleCount;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected Long compute() {
+            if (end - start <= threshold) {
+                return countSequentially(rectangles, start, end, rectangleCount);
+            }
+            int middle = (start + end) >>> 1;
+            CountTask left = new CountTask(rectangles, start, middle, rectangleCount, threshold);
+            left.fork();
+            long rightCount = new CountTask(rectangles, middle, end, rectangleCount, threshold).compute();
+            return left.join() + rightCount;
+        }
+    }
+
+    /**
+     * Returns a new BiDimensionalMap containing the interest points in the rectangle.
+     * The points along the bottom and left borders of the rectangle are included,
+     * but not those along the top and right borders.
+     */
+    public final BiDimensionalMap<InterestPoint> slice(Rectangle rectangle){
+        rectangle.validate();
+        return tree != null ? tree.slice(rectangle) : points.slice(rectangle);
+    }
+
+    /**
+     * @return the number of interest points with the given marker within the radius of the center,
+     * including the points exactly at the radius
+     */
+    public final long count(Coordinate center, BigDecimal radius, M marker){
+        center.validate();
+        Objects.requireNonNull(radius);
+        Objects.requireNonNull(marker);
+
+        BiDimensionalMap<InterestPoint> markerPoints = markerIndex.get(marker);
+        if (markerPoints == null) {
+            return 0;
+        }
+        return markerPoints.collectionSize(center, radius);
+    }
+
+    /**
+     * @return up to k interest points with the given marker closest to the coordinate, sorted from closest to farthest
+     */
+    public final List<InterestPoint> nearest(Coordinate coordinate, int k, M marker){
+        coordinate.validate();
+        Objects.requireNonNull(marker);
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be at least 1");
+        }
+
+        BiDimensionalMap<InterestPoint> markerPoints = markerIndex.get(marker);
+        if (markerPoints == null) {
+            return new ArrayList<>();
+        }
+        return markerPoints.nearest(coordinate, k, interestPoint -> true);
+    }
 
     public String toString(){
         return points.toString();
     }
 
-    public static class Builder {
+    public static class Builder<M extends Enum<M>> {
+
+        //most coordinates have a single interest point, so the cells are CompactSets instead of HashSets
+        private final BiDimensionalMap<InterestPoint> points = new BiDimensionalMap<>(CompactSet::new);
+
+        //Made when the first point is added, since the EnumMap needs the class of the markers
+        private EnumMap<M, BiDimensionalMap<InterestPoint>> markerIndex = null;
+
+        //The enum of the markers, set by the first point added. Points with markers of another enum are not added
+        private Class<?> markerClass = null;
 
-        private final BiDimensionalMap<InterestPoint> points = new BiDimensionalMap<>();
+        private CountIndex countIndex = CountIndex.MARKER_MAPS;
+        private long maxTableSize = PrefixSumCounts.DEFAULT_MAX_TABLE_SIZE;
+
+        //null if regions are counted on the calling thread. Shared by every InterestPoints this Builder builds
+        private ForkJoinPool countPool = null;
+        private int parallelThreshold = Integer.MAX_VALUE;
+
+        /**
+         * Sets how the InterestPoints made by {@code build()} count markers, {@code CountIndex.MARKER_MAPS} by default.
+         * @return this Builder
+         */
+        public final Builder<M> countIndex(CountIndex countIndex) {
+            this.countIndex = Objects.requireNonNull(countIndex);
+            return this;
+        }
+
+        /**
+         * Sets the most entries of the summed-area table of one marker with {@code CountIndex.PREFIX_SUMS},
+         * 2^20 (8 MB) by default. A marker whose table has (x values + 1) * (y values + 1) entries
+         * is counted with its map if that is more than the maximum.
+         * @return this Builder
+         * @throws IllegalArgumentException if maxTableSize is less than 1 or more than Integer.MAX_VALUE
+         */
+        public final Builder<M> maxTableSize(long maxTableSize) {
+            if (maxTableSize < 1 || maxTableSize > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("maxTableSize must be between 1 and Integer.MAX_VALUE");
+            }
+            this.maxTableSize = maxTableSize;
+            return this;
+        }
+
+        /**
+         * Makes the InterestPoints built by {@code build()} count the rectangles of large regions in parallel.
+         * The fork/join pool is made once here and shared by everything this Builder builds.
+         * Its threads are daemon threads that end once they are idle, so it does not need to be shut down.
+         * Regions are counted on the calling thread by default.
+         * @param parallelism the number of threads of the pool
+         * @param threshold the number of rectangles a region needs to be counted in parallel,
+         *                  and the most rectangles counted by one task
+         * @return this Builder
+         */
+        public final Builder<M> parallelCount(int parallelism, int threshold) {
+            if (parallelism < 1 || threshold < 1) {
+                throw new IllegalArgumentException("parallelism and threshold must be positive");
+            }
+            return parallelCount(new ForkJoinPool(parallelism), threshold);
+        }
+
+        /**
+         * Makes the InterestPoints built by {@code build()} count the rectangles of large regions in the given pool,
+         * such as {@code ForkJoinPool.commonPool()}. The pool is not shut down by InterestPoints.
+         * @param threshold the number of rectangles a region needs to be counted in parallel,
+         *                  and the most rectangles counted by one task
+         * @return this Builder
+         */
+        public final Builder<M> parallelCount(ForkJoinPool pool, int threshold) {
+            Objects.requireNonNull(pool);
+            if (threshold < 1) {
+                throw new IllegalArgumentException("threshold must be positive");
+            }
+            this.countPool = pool;
+            this.parallelThreshold = threshold;
+            return this;
+        }
 
         /**
          * Adds an interestPoint to the Builder.
          * Create an InterestPoints instance with {@code build()} after adding one or more points.
          * @param interestPoint: The InterestPoint to be added.
-         * @return false if interestPoint is not valid (is or contains a null pointer)
+         * @return false if interestPoint is not valid (is or contains a null pointer),
+         * has a marker of a different enum than the points already added, or is already in the Builder,
          * or true if successfully added
          */
         public final boolean add(InterestPoint interestPoint) {
+            if (!isValid(interestPoint) || !hasMarkerClass(interestPoint)) {
+                return false;
+            }
+
+            boolean added = points.put(interestPoint.coordinate(), interestPoint);
+
+            if (added) {
+                M marker = (M) interestPoint.marker();
+                markerPoints(marker).put(interestPoint.coordinate(), interestPoint);
+            }
+            return added;
+        }
+
+        /**
+         * Adds many interestPoints to the Builder at once.
+         * The points are sorted by coordinate once and new x values are built into the map
+         * directly from the sorted points, which is much faster than calling {@code add} for each point.
+         * Points that are not valid (are or contain a null pointer) or that have a marker of a different enum
+         * than the points already added are skipped.
+         * @return true if any point was added
+         */
+        public final boolean addAll(Collection<? extends InterestPoint> interestPoints) {
+            Objects.requireNonNull(interestPoints);
+            return addAll(interestPoints.stream());
+        }
+
+        /**
+         * Adds the interestPoints of a stream to the Builder at once, like {@code addAll(Collection)}.
+         * If the stream is parallel, the points are sorted and the columns of each x value are built in parallel.
+         * @return true if any point was added
+         */
+        public final boolean addAll(Stream<? extends InterestPoint> interestPoints) {
+            Objects.requireNonNull(interestPoints);
+            boolean parallel = interestPoints.isParallel();
+            List<InterestPoint> sortedPoints = interestPoints
+                    .filter(Builder::isValid)
+                    .sorted(Comparator.comparing(InterestPoint::coordinate))
+                    .collect(Collectors.toCollection(ArrayList::new));
+            //on this thread, so that the first point decides the marker enum the same way as add
+            sortedPoints.removeIf(interestPoint -> !hasMarkerClass(interestPoint));
+
+            boolean added = points.addAllSorted(sortedPoints, InterestPoint::coordinate, parallel);
+
+            //grouping keeps the points of each marker sorted
+            Map<M, List<InterestPoint>> pointsByMarker = sortedPoints.stream()
+                    .collect(Collectors.groupingBy(interestPoint -> (M) interestPoint.marker(), Collectors.toList()));
+            pointsByMarker.forEach((marker, markerPoints) ->
+                    markerPoints(marker).addAllSorted(markerPoints, InterestPoint::coordinate, parallel));
+            return added;
+        }
+
+        private static boolean isValid(InterestPoint interestPoint) {
             try {
                 interestPoint.validate();
+                return true;
             } catch (NullPointerException e) {
                 return false;
             }
+        }
+
+        /**
+         * @return the number of interest points in the Builder
+         */
+        final long size() {
+            return points.collectionSize();
+        }
 
-            BiDimensionalMap.Updater updater = points.getUpdater();
-            updater.setCoordinate(interestPoint.coordinate());
-            updater.addValue(interestPoint);
-            return updater.add();
+        /**
+         * @return true if the marker of the valid interestPoint is a constant of the same enum as the markers
+         * already added, or if it is the first point
+         */
+        private boolean hasMarkerClass(InterestPoint interestPoint) {
+            Class<?> pointMarkerClass = interestPoint.marker().getDeclaringClass();
+            if (markerClass == null) {
+                markerClass = pointMarkerClass;
+            }
+            return markerClass == pointMarkerClass;
+        }
+
+        /**
+         * @return the map of the points added with the given marker
+         */
+        private BiDimensionalMap<InterestPoint> markerPoints(M marker) {
+            if (markerIndex == null) {
+                markerIndex = new EnumMap<>(marker.getDeclaringClass());
+            }
+            return markerIndex.computeIfAbsent(marker, key -> new BiDimensionalMap<>(CompactSet::new));
         }
 
         /**
          * @return new InterestPoints instance with any points previously added.
+         * Points added to the builder afterwards are not in it. Building takes constant time with
+         * {@code CountIndex.MARKER_MAPS}, since the points are shared with the builder until it changes them.
+         * The first point added afterwards copies the x values of the map of every point and of the map of its marker,
+         * and the columns it is added to, see {@code BiDimensionalMap.snapshot()}.
          */
-        public final InterestPoints build(){
-            return new InterestPoints(this);
+        public final InterestPoints<M> build(){
+            return new InterestPoints<>(this);
         }
     }
 }
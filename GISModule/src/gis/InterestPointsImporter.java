@@ -0,0 +1,595 @@
+package gis;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Streams interest points from CSV or GeoJSON files into an {@code InterestPoints.Builder}.
+ * <p>Files are read through a {@code FileChannel} into one reused buffer, so memory use does not grow
+ * with the size of the file. Parsed points are given to {@code Builder.addAll} in batches.
+ * Rows that can not be made into an interest point are rejected with their line number and the reason,
+ * instead of being silently dropped.</p>
+ * <p>Points are added while the file is read, so if reading fails with an IOException the builder keeps
+ * the points of the batches given to it before the failure. Import into a new Builder to discard them.</p>
+ * <p>CSV files have one point per line as {@code x,y,marker}. Fields can be quoted with double quotes.</p>
+ * <p>GeoJSON files are a FeatureCollection of Point features, with the marker in a property
+ * (named "marker" by default):</p>
+ * <pre>
+ *   {"type": "FeatureCollection", "features": [
+ *     {"type": "Feature", "geometry": {"type": "Point", "coordinates": [-81.6088, 41.5043]},
+ *      "properties": {"marker": "SCHOOL"}}
+ *   ]}
+ * </pre>
+ * @param <M> The type of the markers
+ */
+public final class InterestPointsImporter<M extends Enum<M>> {
+
+    public static final int DEFAULT_BATCH_SIZE = 10_000;
+
+    //Only this many rejections are kept in the result, but all of them are counted
+    public static final int MAX_REJECTIONS_KEPT = 1_000;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Class<M> markerClass;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private boolean skipFirstLine = false;
+    private String markerProperty = "marker";
+
+    /**
+     * A row or feature that could not be imported
+     * @param line the line of the file where the row or feature starts, starting at 1
+     * @param reason why the row or feature was rejected
+     */
+    public record Rejection(long line, String reason) { }
+
+    /**
+     * @param accepted the number of interest points added to the builder, which does not count points
+     *                 that were already in it
+     * @param rejectedCount the number of rows or features that were rejected
+     * @param rejections the first {@code MAX_REJECTIONS_KEPT} rejections
+     */
+    public record Result(long accepted, long rejectedCount, List<Rejection> rejections) { }
+
+    public InterestPointsImporter(Class<M> markerClass) {
+        this.markerClass = Objects.requireNonNull(markerClass);
+    }
+
+    /**
+     * Sets how many points are parsed before they are added to the builder, {@code DEFAULT_BATCH_SIZE} by default.
+     * @return this importer
+     */
+    public InterestPointsImporter<M> batchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * Sets whether the first line of CSV files is a header that should be skipped, false by default.
+     * @return this importer
+     */
+    public InterestPointsImporter<M> skipFirstLine(boolean skipFirstLine) {
+        this.skipFirstLine = skipFirstLine;
+        return this;
+    }
+
+    /**
+     * Sets the name of the GeoJSON feature property with the marker, "marker" by default.
+     * @return this importer
+     */
+    public InterestPointsImporter<M> markerProperty(String markerProperty) {
+        this.markerProperty = Objects.requireNonNull(markerProperty);
+        return this;
+    }
+
+    /**
+     * Adds the interest points of a CSV file to the builder
+     * @throws IOException if the file can not be read, in which case the builder keeps the points
+     * of the batches added before the failure
+     */
+    public Result importCsv(Path path, InterestPoints.Builder<M> builder) throws IOException {
+        Objects.requireNonNull(path);
+        Objects.requireNonNull(builder);
+
+        try (ByteReader reader = new ByteReader(path)) {
+            Batch batch = new Batch(builder);
+            FieldBuffer[] fields = {new FieldBuffer(), new FieldBuffer(), new FieldBuffer()};
+
+            if (skipFirstLine) {
+                reader.skipLine();
+            }
+            while (reader.peek() != ByteReader.END) {
+                long line = reader.line();
+                int fieldCount = readCsvLine(reader, fields);
+                if (fieldCount == 1 && fields[0].length == 0) {
+                    continue; //blank line
+                }
+                if (fieldCount != 3) {
+                    batch.reject(line, "expected 3 fields (x,y,marker) but found " + fieldCount);
+                    continue;
+                }
+
+                BigDecimal x = fields[0].toBigDecimal();
+                BigDecimal y = fields[1].toBigDecimal();
+                if (x == null || y == null) {
+                    batch.reject(line, "coordinate is not a number");
+                    continue;
+                }
+                M marker = toMarker(fields[2].toText());
+                if (marker == null) {
+                    batch.reject(line, "unknown marker " + fields[2].toText());
+                    continue;
+                }
+                batch.add(new InterestPoint<>(new Coordinate(x, y), marker));
+            }
+            return batch.finish();
+        }
+    }
+
+    /**
+     * Reads the fields of one line into {@code fields}, reading past the end of the line.
+     * Extra fields are counted but not kept.
+     * @return the number of fields in the line
+     */
+    private static int readCsvLine(ByteReader reader, FieldBuffer[] fields) throws IOException {
+        for (FieldBuffer field : fields) {
+            field.clear();
+        }
+        int fieldIndex = 0;
+        boolean quoted = false;
+
+        while (true) {
+            int next = reader.read();
+            if (next == ByteReader.END || (!quoted && next == '\n')) {
+                break;
+            }
+            if (next == '"') {
+                if (quoted && reader.peek() == '"') {
+                    reader.read(); //an escaped quote inside a quoted field
+                } else {
+                    quoted = !quoted;
+                    continue;
+                }
+            } else if (!quoted && next == ',') {
+                fieldIndex++;
+                continue;
+            } else if (!quoted && next == '\r') {
+                continue;
+            }
+            if (fieldIndex < fields.length) {
+                fields[fieldIndex].append((byte) next);
+            }
+        }
+        return fieldIndex + 1;
+    }
+
+    /**
+     * Adds the interest points of a GeoJSON FeatureCollection to the builder.
+     * Features are parsed one at a time, so only one feature is in memory at once.
+     * @throws IOException if the file can not be read, is not valid JSON, or is not a JSON object with a "features"
+     * array, in which case the builder keeps the points of the batches added before the failure
+     */
+    public Result importGeoJson(Path path, InterestPoints.Builder<M> builder) throws IOException {
+        Objects.requireNonNull(path);
+        Objects.requireNonNull(builder);
+
+        try (ByteReader reader = new ByteReader(path)) {
+            JsonParser parser = new JsonParser(reader);
+            Batch batch = new Batch(builder);
+
+            parser.expect('{');
+            boolean foundFeatures = false;
+            if (!parser.skipIf('}')) {
+                do {
+                    String key = parser.readString();
+                    parser.expect(':');
+                    if (!key.equals("features")) {
+                        parser.readValue();
+                        continue;
+                    }
+
+                    foundFeatures = true;
+                    parser.expect('[');
+                    if (parser.skipIf(']')) {
+                        continue;
+                    }
+                    do {
+                        parser.skipWhitespace();
+                        long line = reader.line();
+                        Object feature = parser.readValue();
+                        String problem = addFeature(feature, batch);
+                        if (problem != null) {
+                            batch.reject(line, problem);
+                        }
+                    } while (parser.skipIf(','));
+                    parser.expect(']');
+                } while (parser.skipIf(','));
+                parser.expect('}');
+            }
+
+            if (!foundFeatures) {
+                throw new IOException(path + " has no \"features\" array");
+            }
+            return batch.finish();
+        }
+    }
+
+    /**
+     * Adds the point of a parsed GeoJSON feature to the batch
+     * @return why the feature was rejected, or null if it was added
+     */
+    private String addFeature(Object feature, Batch batch) {
+        if (!(feature instanceof Map<?, ?> featureMap)) {
+            return "feature is not an object";
+        }
+        if (!(featureMap.get("geometry") instanceof Map<?, ?> geometry) || !"Point".equals(geometry.get("type"))) {
+            return "feature does not have a Point geometry";
+        }
+        if (!(geometry.get("coordinates") instanceof List<?> coordinates) || coordinates.size() < 2
+                || !(coordinates.get(0) instanceof BigDecimal x) || !(coordinates.get(1) instanceof BigDecimal y)) {
+            return "Point does not have numeric coordinates";
+        }
+        if (!(featureMap.get("properties") instanceof Map<?, ?> properties)
+                || !(properties.get(markerProperty) instanceof String markerName)) {
+            return "feature does not have a \"" + markerProperty + "\" property";
+        }
+        M marker = toMarker(markerName);
+        if (marker == null) {
+            return "unknown marker " + markerName;
+        }
+        batch.add(new InterestPoint<>(new Coordinate(x, y), marker));
+        return null;
+    }
+
+    /**
+     * @return the marker with the given name, or null if markerClass has no such constant
+     */
+    private M toMarker(String name) {
+        try {
+            return Enum.valueOf(markerClass, name.trim());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Collects parsed points and rejections, giving the points to the builder every {@code batchSize} points
+     */
+    private final class Batch {
+
+        private final InterestPoints.Builder<M> builder;
+        private final List<InterestPoint<M>> points = new ArrayList<>();
+        private final List<Rejection> rejections = new ArrayList<>();
+        private long accepted = 0;
+        private long rejectedCount = 0;
+
+        private Batch(InterestPoints.Builder<M> builder) {
+            this.builder = builder;
+        }
+
+        private void add(InterestPoint<M> point) {
+            points.add(point);
+            if (points.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        private void reject(long line, String reason) {
+            rejectedCount++;
+            if (rejections.size() < MAX_REJECTIONS_KEPT) {
+                rejections.add(new Rejection(line, reason));
+            }
+        }
+
+        private void flush() {
+            //addAll loads the sorted batch in bulk, and only the points it added change the size of the builder
+            long previousSize = builder.size();
+            builder.addAll(points);
+            accepted += builder.size() - previousSize;
+            points.clear();
+        }
+
+        private Result finish() {
+            flush();
+            return new Result(accepted, rejectedCount, List.copyOf(rejections));
+        }
+    }
+
+    /**
+     * The bytes of a CSV field, kept between lines so that no buffer is allocated per line
+     */
+    private static final class FieldBuffer {
+
+        private byte[] bytes = new byte[64];
+        private char[] chars = new char[64];
+        private int length = 0;
+
+        private void clear() {
+            length = 0;
+        }
+
+        private void append(byte value) {
+            if (length == bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            bytes[length++] = value;
+        }
+
+        /**
+         * @return the field as a number, or null if it is not one
+         */
+        private BigDecimal toBigDecimal() {
+            int start = 0;
+            int end = length;
+            while (start < end && bytes[start] == ' ') {
+                start++;
+            }
+            while (end > start && bytes[end - 1] == ' ') {
+                end--;
+            }
+            if (start == end) {
+                return null;
+            }
+            if (chars.length < end - start) {
+                chars = new char[bytes.length];
+            }
+            for (int i = start; i < end; i++) {
+                if (bytes[i] < 0) {
+                    return null; //not ASCII, so not a number
+                }
+                chars[i - start] = (char) bytes[i];
+            }
+            try {
+                return new BigDecimal(chars, 0, end - start);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        private String toText() {
+            return new String(bytes, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Reads the bytes of a file through one reused buffer, counting lines
+     */
+    private static final class ByteReader implements AutoCloseable {
+
+        static final int END = -1;
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private long line = 1;
+        private boolean endOfFile = false;
+
+        private ByteReader(Path path) throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+            buffer.flip();
+        }
+
+        /**
+         * @return the next byte without reading it, or END at the end of the file
+         */
+        private int peek() throws IOException {
+            if (!buffer.hasRemaining() && !fill()) {
+                return END;
+            }
+            return buffer.get(buffer.position()) & 0xFF;
+        }
+
+        /**
+         * @return the next byte, or END at the end of the file
+         */
+        private int read() throws IOException {
+            if (!buffer.hasRemaining() && !fill()) {
+                return END;
+            }
+            int next = buffer.get() & 0xFF;
+            if (next == '\n') {
+                line++;
+            }
+            return next;
+        }
+
+        private void skipLine() throws IOException {
+            int next;
+            do {
+                next = read();
+            } while (next != END && next != '\n');
+        }
+
+        /**
+         * @return the line of the next byte
+         */
+        private long line() {
+            return line;
+        }
+
+        private boolean fill() throws IOException {
+            if (endOfFile) {
+                return false;
+            }
+            buffer.clear();
+            int read;
+            do {
+                read = channel.read(buffer);
+            } while (read == 0);
+            buffer.flip();
+            if (read < 0) {
+                endOfFile = true;
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * A small JSON parser that reads values one at a time from a {@code ByteReader}.
+     * Objects are read as Maps, arrays as Lists, numbers as BigDecimals, strings as Strings,
+     * and true, false and null as Boolean or null.
+     */
+    private static final class JsonParser {
+
+        private final ByteReader reader;
+        private final FieldBuffer text = new FieldBuffer();
+
+        private JsonParser(ByteReader reader) {
+            this.reader = reader;
+        }
+
+        private void skipWhitespace() throws IOException {
+            int next = reader.peek();
+            while (next == ' ' || next == '\n' || next == '\r' || next == '\t') {
+                reader.read();
+                next = reader.peek();
+            }
+        }
+
+        private void expect(char expected) throws IOException {
+            skipWhitespace();
+            int next = reader.read();
+            if (next != expected) {
+                throw error("expected '" + expected + "'");
+            }
+        }
+
+        /**
+         * Reads the next character if it is {@code expected}
+         * @return true if it was read
+         */
+        private boolean skipIf(char expected) throws IOException {
+            skipWhitespace();
+            if (reader.peek() == expected) {
+                reader.read();
+                return true;
+            }
+            return false;
+        }
+
+        private Object readValue() throws IOException {
+            skipWhitespace();
+            int next = reader.peek();
+            if (next == '{') {
+                reader.read();
+                Map<String, Object> object = new HashMap<>();
+                if (!skipIf('}')) {
+                    do {
+                        String key = readString();
+                        expect(':');
+                        object.put(key, readValue());
+                    } while (skipIf(','));
+                    expect('}');
+                }
+                return object;
+            } else if (next == '[') {
+                reader.read();
+                List<Object> array = new ArrayList<>();
+                if (!skipIf(']')) {
+                    do {
+                        array.add(readValue());
+                    } while (skipIf(','));
+                    expect(']');
+                }
+                return array;
+            } else if (next == '"') {
+                return readString();
+            } else if (next == '-' || (next >= '0' && next <= '9')) {
+                return readNumber();
+            } else {
+                return readLiteral();
+            }
+        }
+
+        private String readString() throws IOException {
+            expect('"');
+            text.clear();
+            while (true) {
+                int next = reader.read();
+                if (next == ByteReader.END) {
+                    throw error("unterminated string");
+                } else if (next == '"') {
+                    return text.toText();
+                } else if (next == '\\') {
+                    readEscape();
+                } else {
+                    text.append((byte) next);
+                }
+            }
+        }
+
+        private void readEscape() throws IOException {
+            int escaped = reader.read();
+            switch (escaped) {
+                case 'n' -> text.append((byte) '\n');
+                case 't' -> text.append((byte) '\t');
+                case 'r' -> text.append((byte) '\r');
+                case 'b' -> text.append((byte) '\b');
+                case 'f' -> text.append((byte) '\f');
+                case 'u' -> {
+                    char[] hex = new char[4];
+                    for (int i = 0; i < hex.length; i++) {
+                        hex[i] = (char) reader.read();
+                    }
+                    try {
+                        String character = String.valueOf((char) Integer.parseInt(new String(hex), 16));
+                        for (byte value : character.getBytes(StandardCharsets.UTF_8)) {
+                            text.append(value);
+                        }
+                    } catch (NumberFormatException e) {
+                        throw error("invalid unicode escape");
+                    }
+                }
+                case ByteReader.END -> throw error("unterminated string");
+                default -> text.append((byte) escaped); // \" \\ and \/
+            }
+        }
+
+        private BigDecimal readNumber() throws IOException {
+            text.clear();
+            int next = reader.peek();
+            while (next == '-' || next == '+' || next == '.' || next == 'e' || next == 'E' || (next >= '0' && next <= '9')) {
+                text.append((byte) reader.read());
+                next = reader.peek();
+            }
+            BigDecimal number = text.toBigDecimal();
+            if (number == null) {
+                throw error("invalid number");
+            }
+            return number;
+        }
+
+        private Object readLiteral() throws IOException {
+            text.clear();
+            int next = reader.peek();
+            while (next >= 'a' && next <= 'z') {
+                text.append((byte) reader.read());
+                next = reader.peek();
+            }
+            return switch (text.toText()) {
+                case "true" -> Boolean.TRUE;
+                case "false" -> Boolean.FALSE;
+                case "null" -> null;
+                default -> throw error("unexpected value");
+            };
+        }
+
+        private IOException error(String message) {
+            return new IOException("Invalid JSON on line " + reader.line() + ": " + message);
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package gis;
+
+import java.io.*;
+import java.math.RoundingMode;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Interest points stored in a compact binary file and read through memory-mapped buffers.
+ * Opening a snapshot only reads its header, and {@code get}, {@code count} and {@code slice}
+ * are answered directly from the mapped file without building a {@code BiDimensionalMap}.
+ * <p>File format, version 1 (big-endian):</p>
+ * <pre>
+ *   int    MAGIC ("GISP")
+ *   int    VERSION
+ *   int    scale of the fixed-point coordinates
+ *   int    number of marker names, then each name as a short length and UTF-8 bytes
+ *   long   number of interest points n
+ *   long[n] x values, sorted
+ *   long[n] y values, sorted within each x value
+ *   short[n] marker of each point, as an index in the marker names
+ * </pre>
+ * Markers are stored by name so that a snapshot still opens after constants are added to the marker enum.
+ * @param <M> The type of the markers
+ */
+public final class InterestPointsSnapshot<M extends Enum<M>> {
+
+    static final int MAGIC = 0x47495350;
+    static final int VERSION = 1;
+
+    private final FixedPoint fixedPoint;
+    private final List<M> markers;
+    private final int size;
+    private final LongBuffer xs;
+    private final LongBuffer ys;
+    private final ShortBuffer markerIndexes;
+
+    private InterestPointsSnapshot(FixedPoint fixedPoint, List<M> markers, int size,
+                                   LongBuffer xs, LongBuffer ys, ShortBuffer markerIndexes) {
+        this.fixedPoint = fixedPoint;
+        this.markers = markers;
+        this.size = size;
+        this.xs = xs;
+        this.ys = ys;
+        this.markerIndexes = markerIndexes;
+    }
+
+    /**
+     * Writes the interest points to a snapshot file, replacing the file if it exists.
+     * @throws IllegalArgumentException if a coordinate has more decimal places than the scale of {@code fixedPoint}
+     */
+    public static <M extends Enum<M>> void write(InterestPoints<M> interestPoints, Path path, FixedPoint fixedPoint) throws IOException {
+        Objects.requireNonNull(interestPoints);
+        Objects.requireNonNull(path);
+        Objects.requireNonNull(fixedPoint);
+
+        List<InterestPoint> points = new ArrayList<>();
+        interestPoints.interestPoints().forEach(points::addAll);
+        if (points.size() > Integer.MAX_VALUE / Long.BYTES) {
+            throw new IllegalArgumentException("Too many interest points for one snapshot");
+        }
+
+        //all markers are constants of the same enum
+        List<String> markerNames = new ArrayList<>();
+        if (!points.isEmpty()) {
+            Enum<?> firstMarker = points.get(0).marker();
+            for (Enum<?> marker : firstMarker.getDeclaringClass().getEnumConstants()) {
+                markerNames.add(marker.name());
+            }
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(fixedPoint.scale());
+            out.writeInt(markerNames.size());
+            for (String name : markerNames) {
+                byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+                out.writeShort(bytes.length);
+                out.write(bytes);
+            }
+            out.writeLong(points.size());
+
+            for (InterestPoint point : points) {
+                out.writeLong(fixedPoint.toLong(point.coordinate().x()));
+            }
+            for (InterestPoint point : points) {
+                out.writeLong(fixedPoint.toLong(point.coordinate().y()));
+            }
+            for (InterestPoint point : points) {
+                out.writeShort(point.marker().ordinal());
+            }
+        }
+    }
+
+    /**
+     * Opens a snapshot file written by {@code write}. Only the header is read, the points are mapped into memory.
+     * @param markerClass the enum of the markers in the snapshot
+     * @throws IOException if the file is not a snapshot, has an unknown version, has a header or size that does not
+     * match its length, has markers that are not in markerClass, or has a point whose marker is not in its header
+     */
+    public static <M extends Enum<M>> InterestPointsSnapshot<M> open(Path path, Class<M> markerClass) throws IOException {
+        Objects.requireNonNull(path);
+        Objects.requireNonNull(markerClass);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            if (in.readInt() != MAGIC) {
+                throw new IOException(path + " is not an interest points snapshot");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " + version);
+            }
+            FixedPoint fixedPoint;
+            try {
+                fixedPoint = new FixedPoint(in.readInt());
+            } catch (IllegalArgumentException e) {
+                throw new IOException(path + " has an invalid scale", e);
+            }
+            long headerSize = 4L * Integer.BYTES;
+
+            //each marker name takes at least its length, so a valid count can not need more bytes than the file has
+            int markerCount = in.readInt();
+            if (markerCount < 0 || headerSize + (long) markerCount * Short.BYTES > channel.size()) {
+                throw new IOException(path + " has an invalid number of markers");
+            }
+            List<M> markers = new ArrayList<>(markerCount);
+            for (int i = 0; i < markerCount; i++) {
+                byte[] bytes = new byte[in.readUnsignedShort()];
+                in.readFully(bytes);
+                headerSize += Short.BYTES + bytes.length;
+                String name = new String(bytes, StandardCharsets.UTF_8);
+                try {
+                    markers.add(Enum.valueOf(markerClass, name));
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Marker " + name + " is not a constant of " + markerClass.getName(), e);
+                }
+            }
+
+            long size = in.readLong();
+            headerSize += Long.BYTES;
+            if (size < 0 || size > Integer.MAX_VALUE / Long.BYTES
+                    || channel.size() != headerSize + size * (2 * Long.BYTES + Short.BYTES)) {
+                throw new IOException(path + " is not a complete snapshot");
+            }
+
+            //the mappings stay valid after the channel is closed
+            MappedByteBuffer xBytes = channel.map(FileChannel.MapMode.READ_ONLY, headerSize, size * Long.BYTES);
+            MappedByteBuffer yBytes = channel.map(FileChannel.MapMode.READ_ONLY, headerSize + size * Long.BYTES, size * Long.BYTES);
+            MappedByteBuffer markerBytes = channel.map(FileChannel.MapMode.READ_ONLY, headerSize + 2 * size * Long.BYTES, size * Short.BYTES);
+            ShortBuffer markerIndexes = markerBytes.asShortBuffer();
+            //checked once here, so that a corrupt marker index is not found by a query later
+            for (int i = 0; i < size; i++) {
+                short markerIndex = markerIndexes.get(i);
+                if (markerIndex < 0 || markerIndex >= markerCount) {
+                    throw new IOException(path + " has a point with marker index " + markerIndex
+                            + ", but only " + markerCount + " markers");
+                }
+            }
+            return new InterestPointsSnapshot<>(fixedPoint, List.copyOf(markers), (int) size,
+                    xBytes.asLongBuffer(), yBytes.asLongBuffer(), markerIndexes);
+        }
+    }
+
+    /**
+     * @return the number of interest points in the snapshot
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the interest points at the given coordinate, or null if none exists there
+     */
+    public Collection<InterestPoint<M>> get(Coordinate coordinate) {
+        coordinate.validate();
+        long x;
+        long y;
+        try {
+            x = fixedPoint.toLong(coordinate.x());
+            y = fixedPoint.toLong(coordinate.y());
+        } catch (IllegalArgumentException e) {
+            //a coordinate that can not be written in the snapshot is not in it
+            return null;
+        }
+
+        int columnStart = firstIndexOf(xs, x, 0, size);
+        int columnEnd = firstIndexAfter(xs, x, columnStart, size);
+        int first = firstIndexOf(ys, y, columnStart, columnEnd);
+        int end = firstIndexAfter(ys, y, first, columnEnd);
+        if (first == end) {
+            return null;
+        }
+
+        Collection<InterestPoint<M>> points = new HashSet<>();
+        for (int i = first; i < end; i++) {
+            points.add(pointAt(i));
+        }
+        return points;
+    }
+
+    /**
+     * @return the number of interest points within the non-overlapping region with the given marker
+     */
+    public long count(RectilinearRegion region, M marker) {
+        Objects.requireNonNull(region);
+        Objects.requireNonNull(marker);
+        int markerIndex = markers.indexOf(marker);
+        if (markerIndex < 0) {
+            return 0;
+        }
+
+        long count = 0;
+        for (Rectangle rectangle : region.getRectangles()) {
+            count += forEachIndexIn(rectangle, index -> markerIndexes.get(index) == markerIndex);
+        }
+        return count;
+    }
+
+    /**
+     * Returns a new BiDimensionalMap containing the interest points in the rectangle.
+     * The points along the bottom and left borders of the rectangle are included,
+     * but not those along the top and right borders.
+     */
+    public BiDimensionalMap<InterestPoint> slice(Rectangle rectangle) {
+        BiDimensionalMap<InterestPoint> mapSlice = new BiDimensionalMap<>(CompactSet::new);
+        forEachIndexIn(rectangle, index -> {
+            InterestPoint<M> point = pointAt(index);
+            mapSlice.put(point.coordinate(), point);
+            return true;
+        });
+        return mapSlice;
+    }
+
+    /**
+     * @return a new InterestPoints with every interest point of the snapshot
+     */
+    public InterestPoints<M> toInterestPoints() {
+        InterestPoints.Builder<M> builder = new InterestPoints.Builder<>();
+        List<InterestPoint<M>> points = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            points.add(pointAt(i));
+        }
+        builder.addAll(points);
+        return builder.build();
+    }
+
+    private InterestPoint<M> pointAt(int index) {
+        Coordinate coordinate = fixedPoint.toCoordinate(xs.get(index), ys.get(index));
+        return new InterestPoint<>(coordinate, markers.get(markerIndexes.get(index)));
+    }
+
+    private interface IndexFilter {
+        boolean test(int index);
+    }
+
+    /**
+     * Calls the filter with the index of each point in the rectangle
+     * @return the number of points for which the filter returned true
+     */
+    private long forEachIndexIn(Rectangle rectangle, IndexFilter filter) {
+        rectangle.validate();
+        //rounding the borders up keeps exactly the points with left <= x < right and bottom <= y < top
+        long left = fixedPoint.toLong(rectangle.left(), RoundingMode.CEILING);
+        long right = fixedPoint.toLong(rectangle.right(), RoundingMode.CEILING);
+        long bottom = fixedPoint.toLong(rectangle.bottom(), RoundingMode.CEILING);
+        long top = fixedPoint.toLong(rectangle.top(), RoundingMode.CEILING);
+
+        long count = 0;
+        int columnStart = firstIndexOf(xs, left, 0, size);
+        int end = firstIndexOf(xs, right, columnStart, size);
+
+        COLUMNS_IN_RECTANGLE:
+        while (columnStart < end) {
+            int columnEnd = firstIndexAfter(xs, xs.get(columnStart), columnStart, end);
+            int first = firstIndexOf(ys, bottom, columnStart, columnEnd);
+            int last = firstIndexOf(ys, top, first, columnEnd);
+            for (int i = first; i < last; i++) {
+                if (filter.test(i)) {
+                    count++;
+                }
+            }
+            columnStart = columnEnd;
+        }
+        return count;
+    }
+
+    /**
+     * @return the first index in [from, to) of the sorted values with a value of at least {@code value},
+     * or {@code to} if there is none
+     */
+    private static int firstIndexOf(LongBuffer sortedValues, long value, int from, int to) {
+        return binarySearch(sortedValues, value, from, to, false);
+    }
+
+    /**
+     * @return the first index in [from, to) of the sorted values with a value greater than {@code value},
+     * or {@code to} if there is none
+     */
+    private static int firstIndexAfter(LongBuffer sortedValues, long value, int from, int to) {
+        return binarySearch(sortedValues, value, from, to, true);
+    }
+
+    private static int binarySearch(LongBuffer sortedValues, long value, int from, int to, boolean skipEqualValues) {
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            long middleValue = sortedValues.get(middle);
+            if (middleValue < value || (skipEqualValues && middleValue == value)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,531 @@
+package gis;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * A 2D map like {@code BiDimensionalMap} that stores every marker in two flat arrays sorted by the
+ * Morton code (Z-order) of its coordinate, instead of a {@code TreeMap} of {@code TreeMap}s of {@code HashSet}s.
+ * <p>The Morton code of a point interleaves the bits of its fixed-point x and y values, so points that are
+ * close together usually have close codes. A rectangle is split into a small number of code ranges,
+ * and each range is read sequentially from the arrays. There is one {@code long} and one reference per marker,
+ * with no object per column or coordinate.</p>
+ * <p>Coordinates are converted with the map's {@code FixedPoint}, and their fixed-point values must fit in an {@code int}.
+ * Adding markers with the {@code Updater} moves the markers after them in the arrays, so large maps should be made
+ * with a {@code Builder} or {@code of(BiDimensionalMap, FixedPoint)}, which sort the markers once, and then mostly queried. Coordinates without any markers are not stored.</p>
+ * @param <T> the type for markers stored at each coordinate point.
+ */
+public class MortonBiDimensionalMap<T> {
+
+    //Rectangles are split into cells at most this many times smaller than their longest side
+    private static final int RANGE_REFINEMENT_BITS = 3;
+
+    private final FixedPoint fixedPoint;
+
+    //The Morton codes of the markers, sorted as unsigned values, and the marker with each code
+    private long[] codes = new long[0];
+    private Object[] values = new Object[0];
+    private int size = 0;
+
+    /**
+     * Creates a map that stores coordinates as microdegrees
+     */
+    public MortonBiDimensionalMap() {
+        this(FixedPoint.MICRODEGREES);
+    }
+
+    public MortonBiDimensionalMap(FixedPoint fixedPoint) {
+        this.fixedPoint = Objects.requireNonNull(fixedPoint);
+    }
+
+    /**
+     * @return a new map with the same markers at the same coordinates as {@code map}, sorted once
+     * @throws IllegalArgumentException if a coordinate can not be stored with {@code fixedPoint}
+     */
+    public static <T> MortonBiDimensionalMap<T> of(BiDimensionalMap<T> map, FixedPoint fixedPoint) {
+        Objects.requireNonNull(map);
+        Builder<T> builder = new Builder<>(fixedPoint);
+        COORDINATES_IN_MAP:
+        for (Coordinate coordinate : map.coordinateSet()) {
+            long code = builder.added.codeOf(coordinate);
+            for (T value : map.get(coordinate)) {
+                builder.added.append(code, value);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Collects markers, then makes a {@code MortonBiDimensionalMap} of them by sorting them once with {@code build()},
+     * in O(n log n) time for n markers, instead of moving the arrays for each marker like the {@code Updater}.
+     * @param <T> the type for markers stored at each coordinate point.
+     */
+    public static final class Builder<T> {
+
+        //The markers added so far, in the order they were added
+        private final MortonBiDimensionalMap<T> added;
+
+        /**
+         * Creates a Builder that stores coordinates as microdegrees
+         */
+        public Builder() {
+            this(FixedPoint.MICRODEGREES);
+        }
+
+        public Builder(FixedPoint fixedPoint) {
+            this.added = new MortonBiDimensionalMap<>(fixedPoint);
+        }
+
+        /**
+         * Adds a marker at the coordinate
+         * @return this Builder
+         * @throws IllegalArgumentException if the coordinate can not be stored with the {@code FixedPoint} of the Builder
+         */
+        public Builder<T> add(Coordinate coordinate, T value) {
+            coordinate.validate();
+            return add(added.toInt(coordinate.x()), added.toInt(coordinate.y()), value);
+        }
+
+        /**
+         * Adds a marker at the fixed-point (x, y) location
+         * @return this Builder
+         */
+        public Builder<T> add(int x, int y, T value) {
+            Objects.requireNonNull(value);
+            added.append(encode(x, y), value);
+            return this;
+        }
+
+        /**
+         * @return a new map with the markers added so far. A marker added more than once at the same location
+         * is only kept once, like with the {@code Updater}.
+         */
+        public MortonBiDimensionalMap<T> build() {
+            int count = added.size;
+            long[] addedCodes = added.codes;
+            Integer[] order = new Integer[count];
+            Arrays.setAll(order, i -> i);
+            //the sort is stable, so the markers at each location stay in the order they were added
+            Arrays.sort(order, (a, b) -> Long.compareUnsigned(addedCodes[a], addedCodes[b]));
+
+            MortonBiDimensionalMap<T> map = new MortonBiDimensionalMap<>(added.fixedPoint);
+            map.codes = new long[count];
+            map.values = new Object[count];
+            for (int start = 0; start < count; ) {
+                long code = addedCodes[order[start]];
+                int end = start + 1;
+                while (end < count && addedCodes[order[end]] == code) {
+                    end++;
+                }
+                //most locations have one marker, so a set is only made for the others
+                Set<Object> markersAtCode = end - start == 1 ? null : new HashSet<>();
+                for (int i = start; i < end; i++) {
+                    Object value = added.values[order[i]];
+                    if (markersAtCode == null || markersAtCode.add(value)) {
+                        map.codes[map.size] = code;
+                        map.values[map.size] = value;
+                        map.size++;
+                    }
+                }
+                start = end;
+            }
+            return map;
+        }
+    }
+
+    /**
+     * @return the conversion used between coordinates and the fixed-point values of this map
+     */
+    public final FixedPoint fixedPoint() {
+        return fixedPoint;
+    }
+
+    /**
+     * Gets the markers at the given fixed-point (x, y) location.
+     * @return an unmodifiable collection of the markers, or null if there are none
+     */
+    public final Collection<T> get(int x, int y) {
+        long code = encode(x, y);
+        int start = firstIndexOf(code);
+        int end = firstIndexAfter(code, start);
+        return start == end ? null : markersIn(start, end);
+    }
+
+    /**
+     * Gets the markers at the given coordinate.
+     * @return an unmodifiable collection of the markers, or null if there are none
+     * @throws IllegalArgumentException if the coordinate can not be stored with the {@code FixedPoint} of this map
+     */
+    public final Collection<T> get(Coordinate coordinate) {
+        coordinate.validate();
+        return get(toInt(coordinate.x()), toInt(coordinate.y()));
+    }
+
+    /**
+     * @return the list of sorted coordinates, or an empty list if none exist
+     */
+    public final List<Coordinate> coordinateSet() {
+        List<Coordinate> coordinateList = new ArrayList<>();
+        for (int start = 0; start < size; start = firstIndexAfter(codes[start], start)) {
+            coordinateList.add(toCoordinate(codes[start]));
+        }
+        Collections.sort(coordinateList);
+        return coordinateList;
+    }
+
+    /**
+     * @return a list of the markers at each coordinate, in the Z-order of the coordinates
+     */
+    public final List<Collection<T>> collectionList() {
+        List<Collection<T>> collectionList = new ArrayList<>();
+        for (int start = 0; start < size; ) {
+            int end = firstIndexAfter(codes[start], start);
+            collectionList.add(markersIn(start, end));
+            start = end;
+        }
+        return collectionList;
+    }
+
+    /**
+     * @return the number of markers in the map
+     */
+    public final long collectionSize() {
+        return size;
+    }
+
+    /**
+     * @return the number of markers in the map that fit a filter
+     */
+    public final long collectionSize(Predicate<? super T> filter) {
+        Objects.requireNonNull(filter);
+        long count = 0;
+        for (int i = 0; i < size; i++) {
+            if (filter.test(markerAt(i))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns a new map containing the points in the rectangle.
+     * The points along the bottom and left borders of the rectangle are included,
+     * but not those along the top and right borders.
+     * <p>The rectangle is split into ranges of Morton codes that cover it, and only the markers in those ranges
+     * are read. Ranges at the edges of the rectangle can also cover points just outside of it, which are skipped.</p>
+     */
+    public final MortonBiDimensionalMap<T> slice(Rectangle rectangle) {
+        rectangle.validate();
+        MortonBiDimensionalMap<T> mapSlice = new MortonBiDimensionalMap<>(fixedPoint);
+
+        //rounding both borders up keeps exactly the points with left <= x < right and bottom <= y < top
+        long left = Math.max(Integer.MIN_VALUE, fixedPoint.toLong(rectangle.left(), RoundingMode.CEILING));
+        long right = Math.min(Integer.MAX_VALUE + 1L, fixedPoint.toLong(rectangle.right(), RoundingMode.CEILING));
+        long bottom = Math.max(Integer.MIN_VALUE, fixedPoint.toLong(rectangle.bottom(), RoundingMode.CEILING));
+        long top = Math.min(Integer.MAX_VALUE + 1L, fixedPoint.toLong(rectangle.top(), RoundingMode.CEILING));
+        if (left >= right || bottom >= top) {
+            return mapSlice;
+        }
+
+        //the corners of the rectangle as unsigned values, both included
+        long minX = toUnsigned((int) left);
+        long maxX = toUnsigned((int) (right - 1));
+        long minY = toUnsigned((int) bottom);
+        long maxY = toUnsigned((int) (top - 1));
+        List<long[]> ranges = new ArrayList<>();
+        int minLevel = Math.max(0, 63 - Long.numberOfLeadingZeros(Math.max(maxX - minX, maxY - minY) + 1) - RANGE_REFINEMENT_BITS);
+        addRanges(0, 0, 32, minLevel, minX, maxX, minY, maxY, ranges);
+
+        //the slice grows its own arrays as markers are appended in code order, so no code is boxed
+        CODE_RANGES_IN_RECTANGLE:
+        for (long[] range : ranges) {
+            for (int i = firstIndexOf(range[0]); i < size && Long.compareUnsigned(codes[i], range[1]) <= 0; i++) {
+                long x = compact(codes[i]);
+                long y = compact(codes[i] >>> 1);
+                if (minX <= x && x <= maxX && minY <= y && y <= maxY) {
+                    mapSlice.append(codes[i], values[i]);
+                }
+            }
+        }
+        return mapSlice;
+    }
+
+    /**
+     * Adds the code ranges of the parts of a cell that overlap the rectangle, in increasing order.
+     * The cell has its lower corner at (cellX, cellY) and sides of 2^level. Cells inside the rectangle,
+     * or at {@code minLevel}, are added whole, and adjacent ranges are merged.
+     */
+    private static void addRanges(long cellX, long cellY, int level, int minLevel,
+                                  long minX, long maxX, long minY, long maxY, List<long[]> ranges) {
+        long cellMaxX = cellX + (1L << level) - 1;
+        long cellMaxY = cellY + (1L << level) - 1;
+        if (cellMaxX < minX || maxX < cellX || cellMaxY < minY || maxY < cellY) {
+            return;
+        }
+
+        boolean inside = minX <= cellX && cellMaxX <= maxX && minY <= cellY && cellMaxY <= maxY;
+        if (inside || level <= minLevel) {
+            long first = spread(cellX) | (spread(cellY) << 1);
+            long last = level == 32 ? -1L : first + (1L << (2 * level)) - 1;
+            long[] previous = ranges.isEmpty() ? null : ranges.get(ranges.size() - 1);
+            if (previous != null && previous[1] + 1 == first) {
+                previous[1] = last;
+            } else {
+                ranges.add(new long[] {first, last});
+            }
+            return;
+        }
+
+        //the four quarters in Z-order: x is the lower bit of each pair of bits in a code
+        long half = 1L << (level - 1);
+        addRanges(cellX, cellY, level - 1, minLevel, minX, maxX, minY, maxY, ranges);
+        addRanges(cellX + half, cellY, level - 1, minLevel, minX, maxX, minY, maxY, ranges);
+        addRanges(cellX, cellY + half, level - 1, minLevel, minX, maxX, minY, maxY, ranges);
+        addRanges(cellX + half, cellY + half, level - 1, minLevel, minX, maxX, minY, maxY, ranges);
+    }
+
+    public String toString() {
+        return collectionList().stream()
+                .flatMap(Collection::stream)
+                .collect(Collectors.toList())
+                .toString();
+    }
+
+    public Updater getUpdater() {
+        return new Updater();
+    }
+
+    private long codeOf(Coordinate coordinate) {
+        return encode(toInt(coordinate.x()), toInt(coordinate.y()));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the value can not be stored with the {@code FixedPoint} of this map
+     */
+    private int toInt(BigDecimal value) {
+        long fixedPointValue = fixedPoint.toLong(value);
+        if (fixedPointValue < Integer.MIN_VALUE || fixedPointValue > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(value + " is too large to be stored in a Morton code with scale " + fixedPoint.scale());
+        }
+        return (int) fixedPointValue;
+    }
+
+    private Coordinate toCoordinate(long code) {
+        return fixedPoint.toCoordinate(fromUnsigned(compact(code)), fromUnsigned(compact(code >>> 1)));
+    }
+
+    /**
+     * @return the Morton code of the fixed-point location (x, y)
+     */
+    private static long encode(int x, int y) {
+        return spread(toUnsigned(x)) | (spread(toUnsigned(y)) << 1);
+    }
+
+    /**
+     * Shifts an int so that its unsigned order is the same as its signed order
+     */
+    private static long toUnsigned(int value) {
+        return (value ^ Integer.MIN_VALUE) & 0xFFFFFFFFL;
+    }
+
+    private static int fromUnsigned(long value) {
+        return (int) value ^ Integer.MIN_VALUE;
+    }
+
+    /**
+     * @return the 32 lowest bits of the value, moved to the even bits of a long
+     */
+    private static long spread(long value) {
+        value &= 0xFFFFFFFFL;
+        value = (value | (value << 16)) & 0x0000FFFF0000FFFFL;
+        value = (value | (value << 8)) & 0x00FF00FF00FF00FFL;
+        value = (value | (value << 4)) & 0x0F0F0F0F0F0F0F0FL;
+        value = (value | (value << 2)) & 0x3333333333333333L;
+        value = (value | (value << 1)) & 0x5555555555555555L;
+        return value;
+    }
+
+    /**
+     * @return the even bits of a long, moved to the 32 lowest bits. The opposite of {@code spread}.
+     */
+    private static long compact(long value) {
+        value &= 0x5555555555555555L;
+        value = (value | (value >>> 1)) & 0x3333333333333333L;
+        value = (value | (value >>> 2)) & 0x0F0F0F0F0F0F0F0FL;
+        value = (value | (value >>> 4)) & 0x00FF00FF00FF00FFL;
+        value = (value | (value >>> 8)) & 0x0000FFFF0000FFFFL;
+        value = (value | (value >>> 16)) & 0x00000000FFFFFFFFL;
+        return value;
+    }
+
+    /**
+     * @return the first index with a code of at least {@code code}, or {@code size} if there is none
+     */
+    private int firstIndexOf(long code) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (Long.compareUnsigned(codes[middle], code) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return the first index from {@code from} with a code other than {@code code}, or {@code size} if there is none
+     */
+    private int firstIndexAfter(long code, int from) {
+        int end = from;
+        while (end < size && codes[end] == code) {
+            end++;
+        }
+        return end;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T markerAt(int index) {
+        return (T) values[index];
+    }
+
+    private Collection<T> markersIn(int start, int end) {
+        List<T> markers = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++) {
+            markers.add(markerAt(i));
+        }
+        return Collections.unmodifiableList(markers);
+    }
+
+    /**
+     * Moves the markers from {@code index} to make room for {@code count} markers at index
+     */
+    private void openGap(int index, int count) {
+        if (size + count > codes.length) {
+            int capacity = Math.max(size + count, codes.length + (codes.length >> 1) + 1);
+            codes = Arrays.copyOf(codes, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        System.arraycopy(codes, index, codes, index + count, size - index);
+        System.arraycopy(values, index, values, index + count, size - index);
+        size += count;
+    }
+
+    /**
+     * Adds a marker after every other marker, without checking that the codes stay sorted
+     */
+    private void append(long code, Object value) {
+        openGap(size, 1);
+        codes[size - 1] = code;
+        values[size - 1] = value;
+    }
+
+    /**
+     * Removes the markers in [start, end)
+     */
+    private void closeGap(int start, int end) {
+        System.arraycopy(codes, end, codes, start, size - end);
+        System.arraycopy(values, end, values, start, size - end);
+        Arrays.fill(values, size - (end - start), size, null);
+        size -= end - start;
+    }
+
+    /**
+     * Updater class used to add markers to the {@code MortonBiDimensionalMap}, the same way as
+     * the {@code Updater} of {@code BiDimensionalMap}.
+     * <p>  - Use {@code setCoordinate(), setX()}, or {@code setY()} to set what location the markers will be added to, default is (0, 0).</p>
+     * <p>  - Use {@code addValue} to add markers to a list that will be put into the map</p>
+     * <p>  - Use {@code add()} to add that list of markers to the map at the specified location
+     * or {@code set()} to replace the map's values at that location with the list of markers </p>
+     */
+    public final class Updater extends AbstractUpdater<T> {
+
+        private int x = 0;
+        private int y = 0;
+
+        //the markers are kept in the order they were added, which is their order in the arrays
+        public Updater() {
+            super(LinkedHashSet::new);
+        }
+
+        /**add a marker to values. Need to use add() or set() to add to the map
+         *
+         * @param value The (non-null) marker to be added a list of values
+         * @return this Updater
+         */
+        public final Updater addValue(T value) {
+            collect(value);
+            return this;
+        }
+
+        /**
+         * @throws IllegalArgumentException if the coordinate can not be stored with the {@code FixedPoint} of the map
+         */
+        public final Updater setCoordinate(Coordinate coordinate) {
+            coordinate.validate();
+            setX(toInt(coordinate.x()));
+            setY(toInt(coordinate.y()));
+            return this;
+        }
+
+        public final Updater setX(int x) {
+            this.x = x;
+            return this;
+        }
+
+        public final Updater setY(int y) {
+            this.y = y;
+            return this;
+        }
+
+        /**Replace the markers at (x, y) in the map with the markers added with {@code addValue(T value)}
+         * @return the previous markers at the (x, y) location in the map if any existed, otherwise returns null
+         */
+        public final Collection<T> set() {
+            long code = encode(x, y);
+            int start = firstIndexOf(code);
+            int end = firstIndexAfter(code, start);
+            Collection<T> previousValues = start == end ? null : new HashSet<>(markersIn(start, end));
+
+            closeGap(start, end);
+            insert(code, start, values());
+            return previousValues;
+        }
+
+        /**Add the markers at (x, y) in the map with the markers added with {@code addValue(T value)}.
+         * @return true if the markers at (x, y) in the map changed because of this call
+         */
+        public final boolean add() {
+            long code = encode(x, y);
+            int start = firstIndexOf(code);
+            int end = firstIndexAfter(code, start);
+            Collection<T> newValues = values();
+            if (start != end) {
+                //a set of the markers already there, so each added marker is checked in constant time
+                Set<T> existingValues = new HashSet<>(markersIn(start, end));
+                newValues = new ArrayList<>(newValues.size());
+                for (T value : values()) {
+                    if (!existingValues.contains(value)) {
+                        newValues.add(value);
+                    }
+                }
+            }
+            insert(code, end, newValues);
+            return !newValues.isEmpty();
+        }
+
+        private void insert(long code, int index, Collection<T> newValues) {
+            openGap(index, newValues.size());
+            for (T value : newValues) {
+                codes[index] = code;
+                MortonBiDimensionalMap.this.values[index] = value;
+                index++;
+            }
+        }
+    }
+}
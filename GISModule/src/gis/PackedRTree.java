@@ -0,0 +1,246 @@
+package gis;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * A frozen R-tree of interest points, packed with the Sort-Tile-Recursive (STR) algorithm.
+ * <p>The points are sorted by x into about sqrt(n / NODE_CAPACITY) vertical slabs, each slab is sorted by y,
+ * and every run of {@code NODE_CAPACITY} points becomes a leaf. The leaves are packed into parent nodes the same
+ * way, using the centers of their bounding boxes, until one root is left. Unlike the columns of a
+ * {@code BiDimensionalMap}, a node covers a small area in both x and y, so a tall thin rectangle or a
+ * tight cluster of points only visits the nodes it overlaps.</p>
+ * <p>Each node also stores how many of its points have each marker, so a node that is entirely inside
+ * a rectangle is counted without visiting its children.</p>
+ */
+final class PackedRTree {
+
+    static final int NODE_CAPACITY = 16;
+
+    private final InterestPoint[] points;
+    private final BigDecimal[] xs;
+    private final BigDecimal[] ys;
+    private final int[] markers;
+
+    //null if there are no points
+    private final Node root;
+
+    /**
+     * A node of the tree. Leaves have the points in [start, end) and no children.
+     */
+    private static final class Node {
+        private BigDecimal minX;
+        private BigDecimal minY;
+        private BigDecimal maxX;
+        private BigDecimal maxY;
+        private Node[] children;
+        private int start;
+        private int end;
+        private long[] markerCounts;
+
+        //twice the center, which sorts the nodes the same way without dividing
+        private BigDecimal centerX() {
+            return minX.add(maxX);
+        }
+
+        private BigDecimal centerY() {
+            return minY.add(maxY);
+        }
+    }
+
+    private PackedRTree(InterestPoint[] points, int[] markers, int markerCount) {
+        this.points = points;
+        this.markers = markers;
+        this.xs = new BigDecimal[points.length];
+        this.ys = new BigDecimal[points.length];
+        for (int i = 0; i < points.length; i++) {
+            xs[i] = points[i].coordinate().x();
+            ys[i] = points[i].coordinate().y();
+        }
+        this.root = points.length == 0 ? null : pack(leaves(markerCount));
+    }
+
+    /**
+     * @return a tree of every interest point in the map
+     * @param markerCount the number of constants of the marker enum
+     */
+    static PackedRTree of(BiDimensionalMap<InterestPoint> map, int markerCount) {
+        assert map != null;
+        List<InterestPoint> pointList = new ArrayList<>();
+        map.collectionList().forEach(pointList::addAll);
+        pointList.sort(Comparator.comparing(InterestPoint::coordinate));
+
+        //slabs are cut from the points sorted by x, then sorted by y within each slab
+        int slabSize = slabSize(pointList.size());
+        for (int start = 0; start < pointList.size(); start += slabSize) {
+            pointList.subList(start, Math.min(start + slabSize, pointList.size()))
+                    .sort(Comparator.comparing((InterestPoint point) -> point.coordinate().y())
+                            .thenComparing(point -> point.coordinate().x()));
+        }
+
+        InterestPoint[] points = pointList.toArray(new InterestPoint[0]);
+        int[] markers = new int[points.length];
+        for (int i = 0; i < points.length; i++) {
+            markers[i] = points[i].marker().ordinal();
+        }
+        return new PackedRTree(points, markers, markerCount);
+    }
+
+    /**
+     * @return the number of items in each vertical slab, so that there are about as many slabs as nodes per slab
+     */
+    private static int slabSize(int itemCount) {
+        int nodeCount = (itemCount + NODE_CAPACITY - 1) / NODE_CAPACITY;
+        int slabCount = Math.max(1, (int) Math.ceil(Math.sqrt(nodeCount)));
+        int nodesPerSlab = (nodeCount + slabCount - 1) / slabCount;
+        return Math.max(1, nodesPerSlab * NODE_CAPACITY);
+    }
+
+    private List<Node> leaves(int markerCount) {
+        List<Node> leaves = new ArrayList<>();
+        for (int start = 0; start < points.length; start += NODE_CAPACITY) {
+            Node leaf = new Node();
+            leaf.start = start;
+            leaf.end = Math.min(start + NODE_CAPACITY, points.length);
+            leaf.markerCounts = new long[markerCount];
+            leaf.minX = leaf.maxX = xs[start];
+            leaf.minY = leaf.maxY = ys[start];
+            for (int i = leaf.start; i < leaf.end; i++) {
+                leaf.minX = leaf.minX.min(xs[i]);
+                leaf.maxX = leaf.maxX.max(xs[i]);
+                leaf.minY = leaf.minY.min(ys[i]);
+                leaf.maxY = leaf.maxY.max(ys[i]);
+                leaf.markerCounts[markers[i]]++;
+            }
+            leaves.add(leaf);
+        }
+        return leaves;
+    }
+
+    /**
+     * Packs each level of nodes into parents with STR until one node is left
+     * @return the root
+     */
+    private static Node pack(List<Node> nodes) {
+        while (nodes.size() > 1) {
+            nodes = new ArrayList<>(nodes);
+            nodes.sort(Comparator.comparing(Node::centerX));
+            int slabSize = slabSize(nodes.size());
+            for (int start = 0; start < nodes.size(); start += slabSize) {
+                nodes.subList(start, Math.min(start + slabSize, nodes.size())).sort(Comparator.comparing(Node::centerY));
+            }
+
+            List<Node> parents = new ArrayList<>();
+            for (int start = 0; start < nodes.size(); start += NODE_CAPACITY) {
+                parents.add(parentOf(nodes.subList(start, Math.min(start + NODE_CAPACITY, nodes.size()))));
+            }
+            nodes = parents;
+        }
+        return nodes.get(0);
+    }
+
+    private static Node parentOf(List<Node> children) {
+        Node parent = new Node();
+        parent.children = children.toArray(new Node[0]);
+        Node first = children.get(0);
+        parent.minX = first.minX;
+        parent.minY = first.minY;
+        parent.maxX = first.maxX;
+        parent.maxY = first.maxY;
+        parent.markerCounts = new long[first.markerCounts.length];
+        for (Node child : children) {
+            parent.minX = parent.minX.min(child.minX);
+            parent.minY = parent.minY.min(child.minY);
+            parent.maxX = parent.maxX.max(child.maxX);
+            parent.maxY = parent.maxY.max(child.maxY);
+            for (int marker = 0; marker < parent.markerCounts.length; marker++) {
+                parent.markerCounts[marker] += child.markerCounts[marker];
+            }
+        }
+        return parent;
+    }
+
+    /**
+     * @return the number of points with the marker in the rectangle, including the left and bottom borders
+     * but not the right and top borders
+     */
+    long count(Rectangle rectangle, Enum<?> marker) {
+        rectangle.validate();
+        if (root == null || marker.ordinal() >= root.markerCounts.length) {
+            return 0;
+        }
+        return count(root, rectangle, marker.ordinal());
+    }
+
+    private long count(Node node, Rectangle rectangle, int marker) {
+        if (node.markerCounts[marker] == 0 || isOutside(node, rectangle)) {
+            return 0;
+        }
+        if (isInside(node, rectangle)) {
+            return node.markerCounts[marker];
+        }
+
+        long count = 0;
+        if (node.children == null) {
+            for (int i = node.start; i < node.end; i++) {
+                if (markers[i] == marker && contains(rectangle, i)) {
+                    count++;
+                }
+            }
+        } else {
+            for (Node child : node.children) {
+                count += count(child, rectangle, marker);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns a new BiDimensionalMap containing the points in the rectangle, with the same borders as {@code count}
+     */
+    BiDimensionalMap<InterestPoint> slice(Rectangle rectangle) {
+        rectangle.validate();
+        List<InterestPoint> pointsInRectangle = new ArrayList<>();
+        if (root != null) {
+            collect(root, rectangle, pointsInRectangle);
+        }
+        pointsInRectangle.sort(Comparator.comparing(InterestPoint::coordinate));
+
+        BiDimensionalMap<InterestPoint> mapSlice = new BiDimensionalMap<>(CompactSet::new);
+        mapSlice.addAllSorted(pointsInRectangle, InterestPoint::coordinate, false);
+        return mapSlice;
+    }
+
+    private void collect(Node node, Rectangle rectangle, List<InterestPoint> pointsInRectangle) {
+        if (isOutside(node, rectangle)) {
+            return;
+        }
+        if (node.children == null) {
+            boolean inside = isInside(node, rectangle);
+            for (int i = node.start; i < node.end; i++) {
+                if (inside || contains(rectangle, i)) {
+                    pointsInRectangle.add(points[i]);
+                }
+            }
+        } else {
+            for (Node child : node.children) {
+                collect(child, rectangle, pointsInRectangle);
+            }
+        }
+    }
+
+    private boolean contains(Rectangle rectangle, int index) {
+        return rectangle.left().compareTo(xs[index]) <= 0 && xs[index].compareTo(rectangle.right()) < 0
+                && rectangle.bottom().compareTo(ys[index]) <= 0 && ys[index].compareTo(rectangle.top()) < 0;
+    }
+
+    private static boolean isInside(Node node, Rectangle rectangle) {
+        return rectangle.left().compareTo(node.minX) <= 0 && node.maxX.compareTo(rectangle.right()) < 0
+                && rectangle.bottom().compareTo(node.minY) <= 0 && node.maxY.compareTo(rectangle.top()) < 0;
+    }
+
+    private static boolean isOutside(Node node, Rectangle rectangle) {
+        return node.maxX.compareTo(rectangle.left()) < 0 || rectangle.right().compareTo(node.minX) <= 0
+                || node.maxY.compareTo(rectangle.bottom()) < 0 || rectangle.top().compareTo(node.minY) <= 0;
+    }
+}
@@ -0,0 +1,100 @@
+package gis;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.TreeSet;
+
+/**
+ * A frozen summed-area table of the number of markers in a {@code BiDimensionalMap}.
+ * <p>The x and y values of the map are compressed into sorted arrays, and {@code sums} stores,
+ * for every pair of indexes (i, j), the number of markers with an x value below {@code xs[i]}
+ * and a y value below {@code ys[j]}. The markers in a rectangle are then counted with two binary
+ * searches per axis and four table lookups, without looking at any point.</p>
+ * <p>The table has (x values + 1) * (y values + 1) entries, so it is only built for maps where
+ * that stays below a maximum, {@code DEFAULT_MAX_TABLE_SIZE} unless the builder sets another one.
+ * The default table takes at most 8 MB, which fits a marker with about 1000 points at distinct coordinates.</p>
+ */
+final class PrefixSumCounts {
+
+    static final long DEFAULT_MAX_TABLE_SIZE = 1 << 20;
+
+    private final BigDecimal[] xs;
+    private final BigDecimal[] ys;
+
+    //sums[i * (ys.length + 1) + j] is the number of markers at (xs[a], ys[b]) with a < i and b < j
+    private final long[] sums;
+
+    private PrefixSumCounts(BigDecimal[] xs, BigDecimal[] ys, long[] sums) {
+        this.xs = xs;
+        this.ys = ys;
+        this.sums = sums;
+    }
+
+    /**
+     * @return the summed-area table of the markers in the map,
+     * or null if the table would have more than {@code maxTableSize} entries
+     */
+    static PrefixSumCounts of(BiDimensionalMap<?> map, long maxTableSize) {
+        assert map != null;
+        assert maxTableSize <= Integer.MAX_VALUE;
+        BigDecimal[] xs = map.xSet().toArray(new BigDecimal[0]);
+        TreeSet<BigDecimal> ySet = new TreeSet<>();
+        for (BigDecimal x : xs) {
+            ySet.addAll(map.ySet(x));
+        }
+        BigDecimal[] ys = ySet.toArray(new BigDecimal[0]);
+
+        long rowLength = ys.length + 1L;
+        if ((xs.length + 1L) * rowLength > maxTableSize) {
+            return null;
+        }
+
+        long[] sums = new long[(int) ((xs.length + 1L) * rowLength)];
+        long[] columnCounts = new long[ys.length];
+
+        X_VALUES_IN_MAP:
+        for (int i = 0; i < xs.length; i++) {
+            Arrays.fill(columnCounts, 0);
+            for (BigDecimal y : map.ySet(xs[i])) {
+                Collection<?> markers = map.get(xs[i], y);
+                columnCounts[Arrays.binarySearch(ys, y)] = markers.size();
+            }
+
+            //each row adds its own running column total to the row before it
+            long runningCount = 0;
+            int row = (i + 1) * (int) rowLength;
+            int previousRow = i * (int) rowLength;
+            for (int j = 0; j < ys.length; j++) {
+                runningCount += columnCounts[j];
+                sums[row + j + 1] = sums[previousRow + j + 1] + runningCount;
+            }
+        }
+        return new PrefixSumCounts(xs, ys, sums);
+    }
+
+    /**
+     * @return the number of markers in the rectangle, including the left and bottom borders
+     * but not the right and top borders
+     */
+    long count(Rectangle rectangle) {
+        rectangle.validate();
+        int left = rank(xs, rectangle.left());
+        int right = rank(xs, rectangle.right());
+        int bottom = rank(ys, rectangle.bottom());
+        int top = rank(ys, rectangle.top());
+        return sum(right, top) - sum(left, top) - sum(right, bottom) + sum(left, bottom);
+    }
+
+    private long sum(int xIndex, int yIndex) {
+        return sums[xIndex * (ys.length + 1) + yIndex];
+    }
+
+    /**
+     * @return the number of values in the sorted array that are less than value
+     */
+    private static int rank(BigDecimal[] sortedValues, BigDecimal value) {
+        int index = Arrays.binarySearch(sortedValues, value);
+        return index >= 0 ? index : -index - 1;
+    }
+}
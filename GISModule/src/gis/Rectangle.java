@@ -6,16 +6,13 @@ import java.util.Objects;
 public record Rectangle(Coordinate bottomLeft, Coordinate topRight) {
 
     /**
-     * Ensures the rectangle is valid. Will first check that no fields are null.
+     * Rectangles are validated when they are made. Will first check that no fields are null.
      * Then checks that Bottom Left is below and/or to the left of topRight.
      * Horizontal and vertical lines are valid but a point is not.
-     * @return the valid rectangle
+     * @throws NullPointerException if a coordinate is null
+     * @throws IllegalArgumentException if bottomLeft is not below and/or to the left of topRight
      */
-    public static final Rectangle validate(Rectangle rectangle) {
-
-        Coordinate bottomLeft = rectangle.bottomLeft;
-        Coordinate topRight = rectangle.topRight;
-        Objects.requireNonNull(rectangle, "Rectangle can not be null");
+    public Rectangle {
         Objects.requireNonNull(bottomLeft, "Bottom left coordinate can not be null");
         Objects.requireNonNull(topRight, "Top right coordinate can not be null");
 
@@ -26,36 +23,37 @@ public record Rectangle(Coordinate bottomLeft, Coordinate topRight) {
         if (equalPoints || horizontalInvalid || verticalInvalid ){
             throw new IllegalArgumentException("bottomLeft must be below and to the left of topRight");
         }
-        return rectangle;
     }
 
     /**
-     * Ensures the rectangle is valid. Will first check that no fields are null.
-     * Then check that Bottom Left is either to the left of topRight
-     * or along the same horizontal but with bottomLeft below topRight.
+     * Ensures the rectangle is not null. Its coordinates were already checked when it was made.
+     * @return the valid rectangle
+     */
+    public static final Rectangle validate(Rectangle rectangle) {
+        return Objects.requireNonNull(rectangle, "Rectangle can not be null");
+    }
+
+    /**
+     * Rectangles are checked when they are made, so this always returns the rectangle
      * @return the valid rectangle
      */
     public final Rectangle validate(){
-        return Rectangle.validate(this);
+        return this;
     }
 
     public BigDecimal left() {
-        validate();
         return bottomLeft.x();
     }
 
     public BigDecimal right() {
-        validate();
         return topRight.x();
     }
 
     public BigDecimal bottom() {
-        validate();
         return bottomLeft.y();
     }
 
     public BigDecimal top(){
-        validate();
         return topRight.y();
     }
 
@@ -69,13 +69,46 @@ public final class RectilinearRegion {
     }
 
     /**
-     *
+     * Sweeps a vertical line from left to right over the rectangles, keeping the y intervals of the
+     * rectangles the line crosses in a sorted map. Since rectangles are left and bottom inclusive but
+     * right and top exclusive, rectangles that only share a border do not overlap, and lines
+     * (rectangles with no width or height) can not overlap anything.
+     * Runs in O(r log r) for r rectangles.
      * @return true if there are overlapping rectangles in the RectilinearRegion
      */
     public boolean isOverlapping(){
+        validate(rectangles);
 
-        return rectangleMap().collectionList().stream()
-                .anyMatch(rectangleCollection -> rectangleCollection.size() > 1);
+        List<Rectangle> byLeft = new ArrayList<>();
+        for (Rectangle rectangle : rectangles) {
+            boolean hasArea = rectangle.left().compareTo(rectangle.right()) < 0
+                    && rectangle.bottom().compareTo(rectangle.top()) < 0;
+            if (hasArea) {
+                byLeft.add(rectangle);
+            }
+        }
+        byLeft.sort(Comparator.comparing(Rectangle::left));
+        PriorityQueue<Rectangle> byRight = new PriorityQueue<>(Comparator.comparing(Rectangle::right));
+
+        //bottom to top of each rectangle crossed by the sweep line. They never overlap, so each bottom is unique
+        TreeMap<BigDecimal, BigDecimal> activeIntervals = new TreeMap<>();
+
+        SWEEP_LEFT_TO_RIGHT:
+        for (Rectangle rectangle : byLeft) {
+            //rectangles ending at or before this left border are no longer crossed by the sweep line
+            while (!byRight.isEmpty() && byRight.peek().right().compareTo(rectangle.left()) <= 0) {
+                activeIntervals.remove(byRight.poll().bottom());
+            }
+
+            //only the active interval with the highest bottom under this top can overlap
+            Map.Entry<BigDecimal, BigDecimal> below = activeIntervals.lowerEntry(rectangle.top());
+            if (below != null && below.getValue().compareTo(rectangle.bottom()) > 0) {
+                return true;
+            }
+            activeIntervals.put(rectangle.bottom(), rectangle.top());
+            byRight.add(rectangle);
+        }
+        return false;
     }
 
     /**
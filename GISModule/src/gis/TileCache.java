@@ -0,0 +1,164 @@
+package gis;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Caches the marker counts of grids over viewports of a {@code BiDimensionalMap}, for drawing the same
+ * viewports many times.
+ * <p>A tile is the grid over one viewport at one zoom level, which splits the viewport into 2^zoom columns
+ * and 2^zoom rows. The cache listens to the changes of the map, and each change updates the count of the one cell
+ * it is in for every cached tile, without counting any tile again. The least recently used tile is dropped
+ * once the cache is full.</p>
+ * @param <T> the type of the markers in the map
+ */
+public final class TileCache<T> {
+
+    public static final int MAX_ZOOM = 10;
+
+    /**
+     * The marker counts of the grid over a viewport. The counts are kept up to date with the map while the tile
+     * is in the cache, and stop changing once it is dropped.
+     */
+    public static final class Tile {
+
+        private final Rectangle viewport;
+        private final int zoom;
+        private long version;
+        private final long[][] counts;
+
+        private Tile(Rectangle viewport, int zoom, long version, long[][] counts) {
+            this.viewport = viewport;
+            this.zoom = zoom;
+            this.version = version;
+            this.counts = counts;
+        }
+
+        public Rectangle viewport() {
+            return viewport;
+        }
+
+        public int zoom() {
+            return zoom;
+        }
+
+        /**
+         * @return the version of the map that the counts are up to date with
+         */
+        public long version() {
+            return version;
+        }
+
+        /**
+         * @return the number of columns and of rows in the grid, which is 2^zoom
+         */
+        public int side() {
+            return counts.length;
+        }
+
+        /**
+         * @return the number of markers in the cell, where (0, 0) is the bottom left cell
+         * @throws IndexOutOfBoundsException if the column or row is not in [0, side)
+         */
+        public long count(int column, int row) {
+            return counts[column][row];
+        }
+    }
+
+    private record Key(Rectangle viewport, int zoom) { }
+
+    private final BiDimensionalMap<T> map;
+    private final Map<Key, Tile> tiles;
+    private final Consumer<BiDimensionalMap.Change<T>> listener = this::update;
+
+    /**
+     * Creates an empty cache for the tiles of the map, which is added as a listener of the map
+     * until {@code close()} is called
+     * @param capacity the most tiles to keep, after which the least recently used tile is dropped
+     * @throws IllegalArgumentException if capacity is less than 1
+     */
+    public TileCache(BiDimensionalMap<T> map, int capacity) {
+        this.map = Objects.requireNonNull(map);
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The capacity must be at least 1");
+        }
+        this.tiles = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Tile> eldest) {
+                return size() > capacity;
+            }
+        };
+        map.addListener(listener);
+    }
+
+    /**
+     * Adds the change to the cell it is in for each tile that was up to date before the change.
+     * Tiles that missed a change are counted again the next time they are used.
+     */
+    private synchronized void update(BiDimensionalMap.Change<T> change) {
+        int difference = change.added().size() - change.removed().size();
+        BigDecimal x = change.coordinate().x();
+        BigDecimal y = change.coordinate().y();
+
+        for (Tile tile : tiles.values()) {
+            if (tile.version != change.version() - 1) {
+                continue;
+            }
+            Rectangle viewport = tile.viewport;
+            boolean inViewport = viewport.left().compareTo(x) <= 0 && x.compareTo(viewport.right()) < 0
+                    && viewport.bottom().compareTo(y) <= 0 && y.compareTo(viewport.top()) < 0;
+            if (difference != 0 && inViewport) {
+                int column = BiDimensionalMap.gridIndex(x, viewport.left(), viewport.right().subtract(viewport.left()), tile.side());
+                int row = BiDimensionalMap.gridIndex(y, viewport.bottom(), viewport.top().subtract(viewport.bottom()), tile.side());
+                tile.counts[column][row] += difference;
+            }
+            tile.version = change.version();
+        }
+    }
+
+    /**
+     * Gets the tile of the viewport at the zoom level for the current version of the map,
+     * counting its markers with {@code BiDimensionalMap.gridCounts} if it is not cached or is out of date.
+     * @throws IllegalArgumentException if zoom is not in [0, MAX_ZOOM]
+     */
+    public synchronized Tile tile(Rectangle viewport, int zoom) {
+        viewport.validate();
+        if (zoom < 0 || zoom > MAX_ZOOM) {
+            throw new IllegalArgumentException("The zoom must be between 0 and " + MAX_ZOOM);
+        }
+        Key key = new Key(viewport, zoom);
+        Tile tile = tiles.get(key);
+        long version = map.version();
+        if (tile == null || tile.version != version) {
+            int side = 1 << zoom;
+            tile = new Tile(viewport, zoom, version, map.gridCounts(viewport, side, side));
+            tiles.put(key, tile);
+        }
+        return tile;
+    }
+
+    /**
+     * @return the number of tiles in the cache
+     */
+    public synchronized int size() {
+        return tiles.size();
+    }
+
+    /**
+     * Removes every tile from the cache
+     */
+    public synchronized void clear() {
+        tiles.clear();
+    }
+
+    /**
+     * Removes every tile and stops listening to the map, after which tiles are counted again whenever the map changes
+     */
+    public synchronized void close() {
+        tiles.clear();
+        map.removeListener(listener);
+    }
+}
@@ -1,6 +1,7 @@
 package gis.test;
 
 import gis.BiDimensionalMap;
+import gis.CompactSet;
 import gis.Coordinate;
 import gis.InterestPoint;
 import gis.Rectangle;
@@ -8,6 +9,7 @@ import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -116,9 +118,7 @@ class BiDimensionalMapTest {
     @Test
     public void testNullHandling(){
         Coordinate nullC = null;
-        Coordinate nullX = new Coordinate(null, new BigDecimal(1));
-        InterestPoint nullXCoordinateInterest = new InterestPoint<>(nullX, Marker.SCHOOL);
-        InterestPoint nullCoordinateInterest = new InterestPoint<>(nullX, Marker.WORK);
+        InterestPoint nullCoordinateInterest = new InterestPoint<>(nullC, Marker.WORK);
         BiDimensionalMap<InterestPoint> map = new BiDimensionalMap<>();
 
         assertNull(map.get(new BigDecimal(-1), new BigDecimal(-1)));
@@ -128,8 +128,9 @@ class BiDimensionalMapTest {
             nullMap.getUpdater();
         });
 
+        //a coordinate with a null x can not be made, so it never reaches the map
         assertThrows(NullPointerException.class, () -> {
-            addInterestPointToMap(map, nullXCoordinateInterest);
+            new Coordinate(null, new BigDecimal(1));
         });
 
         assertThrows(NullPointerException.class, () -> {
@@ -214,6 +215,28 @@ class BiDimensionalMapTest {
         assertEquals(filteredSize, compareSize);
     }
 
+    @Test
+    public void testCollectionSizeAfterUpdates(){
+        BiDimensionalMap<InterestPoint> map = makeTestMapWithPoints(interestPointArray);
+        BigDecimal bD0 = new BigDecimal(0);
+        assertEquals(4, map.columnSize(bD0)); //the origin has two points
+        assertEquals(0, map.columnSize(new BigDecimal(-1)));
+
+        //adding a point that is already there does not change the size
+        assertFalse(addInterestPointToMap(map, interestPointArray[0]));
+        assertEquals(interestPointArray.length, map.collectionSize());
+
+        //replacing the two points at the origin with one point
+        map.getUpdater().setCoordinate(Coordinate.ORIGIN).addValue(newPoint(0, 0)).set();
+        assertEquals(interestPointArray.length - 1, map.collectionSize());
+        assertEquals(3, map.columnSize(bD0));
+
+        //the counts of a view only include the points inside it
+        BiDimensionalMap<InterestPoint> view = map.view(new Rectangle(Coordinate.ORIGIN, makeCoord(2, 2)));
+        assertEquals(3, view.collectionSize());
+        assertEquals(1, view.columnSize(bD0));
+    }
+
     @Test
     public void testSlice(){
         //(Could add another test to make sure no coordinates inside the bounds were missed)
@@ -233,6 +256,419 @@ class BiDimensionalMapTest {
     }
 
 
+    @Test
+    public void testSliceBorders(){
+        //rectangle from (1, 1) to (3, 2): left and bottom borders are included, right and top borders are not
+        Rectangle rectangle = new Rectangle(makeCoord(1, 1), makeCoord(3, 2));
+        BiDimensionalMap<InterestPoint> newMap = testMap.slice(rectangle);
+
+        List<Coordinate> expected = List.of(makeCoord(1, 1), makeCoord(2, 1));
+        assertEquals(expected, newMap.coordinateSet());
+        for (Coordinate coordinate : expected) {
+            assertEquals(Set.copyOf(testMap.get(coordinate)), Set.copyOf(newMap.get(coordinate)));
+        }
+
+        //a line has no area, so nothing is sliced
+        Rectangle line = new Rectangle(makeCoord(1, 1), makeCoord(3, 1));
+        assertTrue(testMap.slice(line).coordinateSet().isEmpty());
+    }
+
+    @Test
+    public void testView(){
+        BiDimensionalMap<InterestPoint> map = makeTestMapWithPoints(interestPointArray);
+        Rectangle rectangle = new Rectangle(makeCoord(1, 1), makeCoord(3, 3));
+        BiDimensionalMap<InterestPoint> view = map.view(rectangle);
+
+        //the view has the same points as a slice
+        assertEquals(map.slice(rectangle).coordinateSet(), view.coordinateSet());
+        assertEquals(Set.of(new BigDecimal(1), new BigDecimal(2)), view.xSet());
+        assertNull(view.get(makeCoord(3, 1)));
+
+        //changes to the map show up in the view
+        InterestPoint addedPoint = new InterestPoint<>(makeCoord(2, 2), Marker.DUPLICATE);
+        addInterestPointToMap(map, addedPoint);
+        assertTrue(view.get(addedPoint.coordinate()).contains(addedPoint));
+
+        //a view of a view only has the points inside both rectangles
+        BiDimensionalMap<InterestPoint> innerView = view.view(new Rectangle(makeCoord(2, 0), makeCoord(4, 2)));
+        assertEquals(List.of(makeCoord(2, 1)), innerView.coordinateSet());
+
+        //views are read-only
+        assertThrows(UnsupportedOperationException.class, view::getUpdater);
+        assertThrows(UnsupportedOperationException.class, () -> view.get(makeCoord(1, 1)).clear());
+    }
+
+    @Test
+    public void testNearest(){
+        //Passes if nearest finds the same distances as sorting every random point by its distance
+        Random random = new Random(293);
+        BiDimensionalMap<InterestPoint> map = new BiDimensionalMap<>();
+        List<InterestPoint> randomPoints = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            InterestPoint point = newPoint(random.nextInt(50) - 25, random.nextInt(50) - 25);
+            if (addInterestPointToMap(map, point)) {
+                randomPoints.add(point);
+            }
+        }
+
+        for (int i = 0; i < 50; i++) {
+            Coordinate center = new Coordinate(BigDecimal.valueOf(random.nextInt(6000) - 3000, 2),
+                    BigDecimal.valueOf(random.nextInt(6000) - 3000, 2));
+            Marker marker = Marker.values()[random.nextInt(Marker.values().length)];
+            Predicate<InterestPoint> filter = point -> point.marker() == marker;
+            int k = 1 + random.nextInt(10);
+
+            List<BigDecimal> expected = randomPoints.stream()
+                    .filter(filter)
+                    .map(point -> squaredDistance(center, point.coordinate()))
+                    .sorted()
+                    .limit(k)
+                    .collect(Collectors.toList());
+            List<InterestPoint> nearest = map.nearest(center, k, filter);
+            assertEquals(expected, nearest.stream()
+                    .map(point -> squaredDistance(center, point.coordinate()))
+                    .collect(Collectors.toList()));
+            assertTrue(nearest.stream().allMatch(filter));
+        }
+
+        //a view only finds its own points
+        BiDimensionalMap<InterestPoint> view = testMap.view(new Rectangle(makeCoord(2, 2), makeCoord(4, 4)));
+        assertEquals(List.of(makeCoord(2, 2)), view.nearest(Coordinate.ORIGIN, 1, point -> true).stream()
+                .map(InterestPoint::coordinate)
+                .collect(Collectors.toList()));
+        assertEquals(4, view.nearest(Coordinate.ORIGIN, 10, point -> true).size());
+        assertThrows(IllegalArgumentException.class, () -> testMap.nearest(Coordinate.ORIGIN, 0, point -> true));
+    }
+
+    @Test
+    public void testWithin(){
+        //Passes if within finds the same points as checking the distance of every random point
+        Random random = new Random(293);
+        BiDimensionalMap<InterestPoint> map = new BiDimensionalMap<>();
+        List<InterestPoint> randomPoints = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            InterestPoint point = newPoint(random.nextInt(50) - 25, random.nextInt(50) - 25);
+            if (addInterestPointToMap(map, point)) {
+                randomPoints.add(point);
+            }
+        }
+
+        for (int i = 0; i < 50; i++) {
+            Coordinate center = makeCoord(random.nextInt(60) - 30, random.nextInt(60) - 30);
+            BigDecimal radius = BigDecimal.valueOf(random.nextInt(1500), 2);
+            Set<InterestPoint> expected = randomPoints.stream()
+                    .filter(point -> squaredDistance(center, point.coordinate()).compareTo(radius.multiply(radius)) <= 0)
+                    .collect(Collectors.toSet());
+
+            List<Collection<InterestPoint>> within = map.within(center, radius);
+            assertEquals(expected, within.stream().flatMap(Collection::stream).collect(Collectors.toSet()));
+            assertEquals(expected.size(), map.collectionSize(center, radius));
+        }
+
+        //points exactly at the radius are included
+        //(0, 0) twice, (1, 0), (2, 0) and (1, 1) are all at most 1 away from (1, 0)
+        assertEquals(5, testMap.collectionSize(makeCoord(1, 0), BigDecimal.ONE));
+        //a view only finds its own points, even if the circle is partly outside of it
+        BiDimensionalMap<InterestPoint> view = testMap.view(new Rectangle(makeCoord(1, 1), makeCoord(3, 3)));
+        assertEquals(List.of(makeCoord(1, 1)), view.within(Coordinate.ORIGIN, new BigDecimal(2)).stream()
+                .map(points -> points.iterator().next().coordinate())
+                .collect(Collectors.toList()));
+        assertThrows(UnsupportedOperationException.class, () -> testMap.within(Coordinate.ORIGIN, BigDecimal.ONE).get(0).clear());
+        assertThrows(IllegalArgumentException.class, () -> testMap.within(Coordinate.ORIGIN, new BigDecimal(-1)));
+    }
+
+    private static BigDecimal squaredDistance(Coordinate a, Coordinate b) {
+        BigDecimal dx = a.x().subtract(b.x());
+        BigDecimal dy = a.y().subtract(b.y());
+        return dx.multiply(dx).add(dy.multiply(dy));
+    }
+
+    @Test
+    public void testCollectionFactory(){
+        //Passes if a map of CompactSets has the same points as a map of HashSets
+        BiDimensionalMap<InterestPoint> map = new BiDimensionalMap<>(CompactSet::new);
+        for (InterestPoint point : interestPointArray) {
+            addInterestPointToMap(map, point);
+        }
+        assertEquals(testMap.coordinateSet(), map.coordinateSet());
+        assertEquals(testMap.collectionSize(), map.collectionSize());
+        for (Coordinate coordinate : testMap.coordinateSet()) {
+            assertEquals(Set.copyOf(testMap.get(coordinate)), Set.copyOf(map.get(coordinate)));
+        }
+
+        //replacing the two points at the origin with one point
+        InterestPoint point = newPoint(0, 0);
+        map.getUpdater().setCoordinate(Coordinate.ORIGIN).addValue(point).set();
+        assertEquals(Set.of(point), Set.copyOf(map.get(Coordinate.ORIGIN)));
+        assertEquals(1, map.slice(new Rectangle(Coordinate.ORIGIN, makeCoord(1, 1))).collectionSize());
+        assertThrows(NullPointerException.class, () -> new BiDimensionalMap<InterestPoint>(null));
+    }
+
+    @Test
+    public void testPutAndReusedUpdater(){
+        //Passes if put and a reused Updater give the same map as a new Updater for each point
+        BiDimensionalMap<InterestPoint> putMap = new BiDimensionalMap<>();
+        BiDimensionalMap<InterestPoint> reusedMap = new BiDimensionalMap<>();
+        BiDimensionalMap<InterestPoint>.Updater updater = reusedMap.getUpdater();
+        for (InterestPoint point : interestPointArray) {
+            putMap.put(point.coordinate(), point);
+            updater.reset().setCoordinate(point.coordinate()).addValue(point).add();
+        }
+        assertFalse(putMap.put(interestPointArray[0].coordinate(), interestPointArray[0]));
+        for (BiDimensionalMap<InterestPoint> map : List.of(putMap, reusedMap)) {
+            assertEquals(testMap.coordinateSet(), map.coordinateSet());
+            assertEquals(testMap.collectionSize(), map.collectionSize());
+            for (Coordinate coordinate : testMap.coordinateSet()) {
+                assertEquals(Set.copyOf(testMap.get(coordinate)), Set.copyOf(map.get(coordinate)));
+            }
+        }
+
+        //a reset Updater has no markers and is back at (0, 0)
+        assertFalse(updater.reset().add());
+        assertEquals(Set.copyOf(testMap.get(Coordinate.ORIGIN)), Set.copyOf(updater.set()));
+        assertTrue(reusedMap.get(Coordinate.ORIGIN).isEmpty());
+
+        assertThrows(NullPointerException.class, () -> putMap.put(Coordinate.ORIGIN, null));
+        assertThrows(UnsupportedOperationException.class,
+                () -> putMap.view(new Rectangle(Coordinate.ORIGIN, makeCoord(1, 1))).put(Coordinate.ORIGIN, interestPointArray[0]));
+    }
+
+    @Test
+    public void testStream(){
+        //Passes if the streams have the same coordinates and markers, in the same order, as the lists
+        assertEquals(testMap.coordinateSet(), testMap.coordinates().collect(Collectors.toList()));
+        assertEquals(testMap.collectionList().stream().flatMap(Collection::stream).collect(Collectors.toList()),
+                testMap.stream().collect(Collectors.toList()));
+
+        BiDimensionalMap<InterestPoint> view = testMap.view(new Rectangle(makeCoord(1, 1), makeCoord(3, 3)));
+        assertEquals(view.coordinateSet(), view.coordinates().collect(Collectors.toList()));
+        assertEquals(view.collectionSize(), view.stream().count());
+        assertEquals(0, new BiDimensionalMap<InterestPoint>().stream().count());
+
+        //Passes if a parallel stream of many columns is split and still keeps the order of the coordinates
+        BiDimensionalMap<Integer> largeMap = new BiDimensionalMap<>();
+        for (int x = 0; x < 1000; x++) {
+            for (int y = 0; y < 10; y++) {
+                largeMap.put(makeCoord(x, y), x * 10 + y);
+            }
+        }
+        assertEquals(largeMap.coordinateSet(), largeMap.coordinates().parallel().collect(Collectors.toList()));
+        assertEquals(10000, largeMap.stream().parallel().distinct().count());
+        assertEquals(largeMap.stream().mapToLong(Integer::longValue).sum(),
+                largeMap.stream().parallel().mapToLong(Integer::longValue).sum());
+    }
+
+    @Test
+    public void testCanonicalKeys(){
+        //Passes if BigDecimals with the same value but different scales find the same cell, which keeps one canonical key
+        BiDimensionalMap<InterestPoint> map = new BiDimensionalMap<>();
+        map.put(new BigDecimal("1.50"), new BigDecimal("2.0"), new InterestPoint<>(makeCoord(1, 2), Marker.HOME));
+        map.put(new BigDecimal("1.5"), new BigDecimal("2"), new InterestPoint<>(makeCoord(1, 2), Marker.WORK));
+
+        assertEquals(2, map.collectionSize());
+        assertEquals(2, map.get(new BigDecimal("1.500"), new BigDecimal("2.00")).size());
+        assertEquals(1, map.xSet().size());
+        assertEquals(new BigDecimal("1.5"), map.xSet().iterator().next());
+        assertEquals(List.of(new Coordinate(new BigDecimal("1.5"), new BigDecimal("2"))), map.coordinateSet());
+        assertTrue(map.coordinateSet().contains(new Coordinate(new BigDecimal("1.50"), new BigDecimal("2.0"))));
+        assertEquals(2, map.columnSize(new BigDecimal("1.50")));
+    }
+
+    @Test
+    public void testGridCountsAndVersion(){
+        //Passes if the grid counts match the number of markers in each cell, and the version only changes with the map
+        BiDimensionalMap<InterestPoint> map = makeTestMapWithPoints(interestPointArray);
+        Rectangle rectangle = new Rectangle(makeCoord(1, 0), makeCoord(7, 4));
+        long[][] counts = map.gridCounts(rectangle, 3, 2);
+        for (int column = 0; column < 3; column++) {
+            for (int row = 0; row < 2; row++) {
+                Rectangle cell = new Rectangle(makeCoord(1 + 2 * column, 2 * row), makeCoord(3 + 2 * column, 2 + 2 * row));
+                assertEquals(map.slice(cell).collectionSize(), counts[column][row]);
+            }
+        }
+        assertEquals(map.view(rectangle).collectionSize(), Arrays.stream(map.view(rectangle).gridCounts(rectangle, 3, 2))
+                .flatMapToLong(Arrays::stream).sum());
+        assertThrows(IllegalArgumentException.class, () -> map.gridCounts(rectangle, 0, 1));
+
+        long version = map.version();
+        BiDimensionalMap<InterestPoint> view = map.view(rectangle);
+        assertEquals(version, view.version());
+        map.get(makeCoord(1, 1));
+        assertEquals(version, map.version());
+        map.put(makeCoord(20, 20), newPoint(20, 20));
+        assertTrue(map.version() > version);
+        assertEquals(map.version(), view.version());
+    }
+
+    @Test
+    public void testListeners(){
+        //Passes if each change is given to the listeners with the markers it removed and added, in order
+        BiDimensionalMap<InterestPoint> map = new BiDimensionalMap<>();
+        List<BiDimensionalMap.Change<InterestPoint>> changes = new ArrayList<>();
+        List<BiDimensionalMap.Change<InterestPoint>> viewChanges = new ArrayList<>();
+        map.addListener(changes::add);
+        Consumer<BiDimensionalMap.Change<InterestPoint>> viewListener = viewChanges::add;
+        BiDimensionalMap<InterestPoint> view = map.view(new Rectangle(makeCoord(0, 0), makeCoord(2, 2)));
+        view.addListener(viewListener);
+
+        InterestPoint home = new InterestPoint<>(makeCoord(1, 1), Marker.HOME);
+        InterestPoint work = new InterestPoint<>(makeCoord(1, 1), Marker.WORK);
+        InterestPoint school = new InterestPoint<>(makeCoord(5, 5), Marker.SCHOOL);
+
+        map.put(makeCoord(1, 1), home);
+        map.put(makeCoord(1, 1), home); //not a change
+        map.getUpdater().setCoordinate(makeCoord(1, 1)).addValue(home).addValue(work).add();
+        map.getUpdater().setCoordinate(makeCoord(5, 5)).addValue(school).add();
+        map.getUpdater().setCoordinate(makeCoord(1, 1)).addValue(work).set();
+        map.getUpdater().setCoordinate(makeCoord(3, 3)).add(); //a new coordinate without markers
+
+        assertEquals(5, changes.size());
+        assertEquals(makeCoord(1, 1), changes.get(0).coordinate());
+        assertEquals(List.of(home), List.copyOf(changes.get(0).added()));
+        assertEquals(1, changes.get(0).version());
+        assertEquals(List.of(work), List.copyOf(changes.get(1).added()));
+        assertEquals(makeCoord(5, 5), changes.get(2).coordinate());
+        assertEquals(List.of(home), List.copyOf(changes.get(3).removed()));
+        assertTrue(changes.get(3).added().isEmpty());
+        assertTrue(changes.get(4).added().isEmpty() && changes.get(4).removed().isEmpty());
+        assertEquals(map.version(), changes.get(4).version());
+        assertThrows(UnsupportedOperationException.class, () -> changes.get(0).added().clear());
+
+        //the view only hears about (1, 1)
+        assertEquals(List.of(changes.get(0), changes.get(1), changes.get(3)), viewChanges);
+
+        assertFalse(map.removeListener(viewListener));
+        assertTrue(view.removeListener(viewListener));
+        map.put(makeCoord(1, 1), school);
+        assertEquals(3, viewChanges.size());
+        assertEquals(6, changes.size());
+    }
+
+    @Test
+    public void testChangeLog(){
+        //Passes if a consumer that was not listening can read the kept changes after the last version it saw
+        BiDimensionalMap<InterestPoint> map = new BiDimensionalMap<>();
+        BiDimensionalMap<InterestPoint> view = map.view(new Rectangle(makeCoord(0, 0), makeCoord(2, 2)));
+        InterestPoint home = new InterestPoint<>(makeCoord(1, 1), Marker.HOME);
+        InterestPoint work = new InterestPoint<>(makeCoord(1, 1), Marker.WORK);
+        InterestPoint school = new InterestPoint<>(makeCoord(5, 5), Marker.SCHOOL);
+
+        map.put(makeCoord(1, 1), home); //made before any changes are kept
+        long seen = map.version();
+        map.keepChanges(3);
+        map.put(makeCoord(1, 1), work);
+        map.put(makeCoord(5, 5), school);
+        map.getUpdater().setCoordinate(makeCoord(1, 1)).addValue(work).set();
+
+        List<BiDimensionalMap.Change<InterestPoint>> changes = map.changesSince(seen);
+        assertEquals(List.of(seen + 1, seen + 2, seen + 3), changes.stream().map(BiDimensionalMap.Change::version).toList());
+        assertEquals(List.of(work), List.copyOf(changes.get(0).added()));
+        assertEquals(List.of(home), List.copyOf(changes.get(2).removed()));
+        assertEquals(changes.subList(2, 3), map.changesSince(seen + 2));
+        assertEquals(List.of(changes.get(0), changes.get(2)), view.changesSince(seen));
+        assertTrue(map.changesSince(map.version()).isEmpty());
+
+        //the oldest change is dropped once the log is full, and earlier versions can not be caught up from
+        map.put(makeCoord(1, 1), school);
+        assertEquals(3, map.changesSince(seen + 1).size());
+        assertThrows(IllegalStateException.class, () -> map.changesSince(seen));
+        assertThrows(IllegalStateException.class, () -> map.changesSince(0));
+        assertThrows(IllegalArgumentException.class, () -> map.changesSince(map.version() + 1));
+
+        assertThrows(IllegalArgumentException.class, () -> map.keepChanges(-1));
+        assertThrows(UnsupportedOperationException.class, () -> view.keepChanges(10));
+        map.keepChanges(0);
+        map.put(makeCoord(1, 1), home);
+        assertThrows(IllegalStateException.class, () -> map.changesSince(map.version() - 1));
+    }
+
+    @Test
+    public void testSnapshot(){
+        //Passes if a snapshot keeps the points the map had when it was made while the map keeps changing
+        //every point is a HOME, so the WORK, SCHOOL and CLASSROOM points written below are never already there
+        InterestPoint [] homes = new InterestPoint [16];
+        for (int i = 0; i < homes.length; i++) {
+            homes[i] = new InterestPoint<>(makeCoord(i / 4, i % 4), Marker.HOME);
+        }
+        BiDimensionalMap<InterestPoint> map = makeTestMapWithPoints(homes);
+        BiDimensionalMap<InterestPoint> view = map.view(new Rectangle(makeCoord(0, 0), makeCoord(3, 3)));
+        List<Coordinate> coordinates = map.coordinateSet();
+        String points = map.toString();
+        long size = map.collectionSize();
+        long columnSize = map.columnSize(new BigDecimal(1));
+        BiDimensionalMap<InterestPoint> snapshot = map.snapshot();
+        BiDimensionalMap<InterestPoint> viewSnapshot = view.snapshot();
+        long viewSize = view.collectionSize();
+
+        map.put(makeCoord(1, 1), new InterestPoint<>(makeCoord(1, 1), Marker.CLASSROOM));
+        map.put(makeCoord(100, 1), new InterestPoint<>(makeCoord(100, 1), Marker.WORK));
+        map.getUpdater().setCoordinate(makeCoord(2, 2)).addValue(new InterestPoint<>(makeCoord(2, 2), Marker.CLASSROOM)).set();
+        map.getUpdater().setCoordinate(makeCoord(1, 50)).add();
+
+        assertEquals(coordinates, snapshot.coordinateSet());
+        assertEquals(points, snapshot.toString());
+        assertEquals(size, snapshot.collectionSize());
+        assertEquals(columnSize, snapshot.columnSize(new BigDecimal(1)));
+        assertEquals(viewSize, viewSnapshot.collectionSize());
+        assertFalse(snapshot.get(makeCoord(2, 2)).contains(new InterestPoint<>(makeCoord(2, 2), Marker.CLASSROOM)));
+        assertEquals(1, map.get(makeCoord(100, 1)).size());
+        assertEquals(1, map.get(makeCoord(2, 2)).size());
+        assertEquals(2, map.get(makeCoord(1, 1)).size());
+        assertNull(snapshot.get(makeCoord(100, 1)));
+        assertEquals(9, viewSize);
+        assertEquals(10, view.collectionSize());
+        assertEquals(18, map.collectionSize());
+
+        //the first snapshot is not changed by later snapshots and writes
+        BiDimensionalMap<InterestPoint> secondSnapshot = map.snapshot();
+        long secondSize = map.collectionSize();
+        map.put(makeCoord(1, 1), new InterestPoint<>(makeCoord(1, 1), Marker.WORK));
+        map.put(makeCoord(1, 1), new InterestPoint<>(makeCoord(1, 1), Marker.SCHOOL));
+        assertEquals(secondSize, secondSnapshot.collectionSize());
+        assertEquals(secondSize + 2, map.collectionSize());
+        assertEquals(size, snapshot.collectionSize());
+        assertTrue(map.version() > secondSnapshot.version());
+        assertSame(snapshot, snapshot.snapshot());
+
+        assertThrows(UnsupportedOperationException.class, snapshot::getUpdater);
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.put(makeCoord(1, 1), newPoint(1, 1)));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.xSet().clear());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.get(makeCoord(1, 1)).clear());
+    }
+
+    @Test
+    public void testSnapshotCopiesOnlyChangedColumns(){
+        //Passes if the snapshots keep the columns and collections that the map changes after them
+        BiDimensionalMap<String> map = new BiDimensionalMap<>();
+        for (int x = 0; x < 3; x++) {
+            for (int y = 0; y < 3; y++) {
+                map.put(makeCoord(x, y), "home");
+            }
+        }
+        BiDimensionalMap<String> first = map.snapshot();
+        BiDimensionalMap<String> second = map.snapshot();
+
+        map.put(makeCoord(1, 1), "work");
+        map.put(makeCoord(1, 2), "work");
+        map.getUpdater().setCoordinate(makeCoord(1, 0)).set();
+
+        for (BiDimensionalMap<String> snapshot : List.of(first, second)) {
+            assertEquals(9, snapshot.collectionSize());
+            assertEquals(3, snapshot.columnSize(new BigDecimal(1)));
+            assertEquals(Set.of("home"), Set.copyOf(snapshot.get(makeCoord(1, 1))));
+            assertEquals(Set.of("home"), Set.copyOf(snapshot.get(makeCoord(1, 0))));
+        }
+        assertEquals(10, map.collectionSize());
+        assertEquals(4, map.columnSize(new BigDecimal("1.00")));
+        assertEquals(3, map.columnSize(new BigDecimal(2)));
+        assertEquals(Set.of("home", "work"), Set.copyOf(map.get(makeCoord(1, 2))));
+
+        //the copied column is changed in place until the next snapshot
+        map.put(makeCoord(1, 1), "school");
+        assertEquals(5, map.columnSize(new BigDecimal(1)));
+        assertEquals(3, first.columnSize(new BigDecimal(1)));
+    }
+
     @Test
     public void testToString(){
         System.out.println("Calling toString for map: " + makeTestMapWithPoints(interestPointArray));
@@ -0,0 +1,67 @@
+package gis.test;
+
+import gis.CompactSet;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactSetTest {
+
+    @Test
+    void testAddAndContains() {
+        //Passes if the set acts like a HashSet while it grows from one element, to an array, to a HashSet
+        CompactSet<Integer> set = new CompactSet<>();
+        Set<Integer> expected = new HashSet<>();
+        assertTrue(set.isEmpty());
+
+        for (int i = 0; i < 20; i++) {
+            assertTrue(set.add(i));
+            assertFalse(set.add(i));
+            expected.add(i);
+            assertEquals(expected, set);
+            assertEquals(expected.hashCode(), set.hashCode());
+            assertTrue(set.contains(i));
+            assertFalse(set.contains(i + 1));
+        }
+
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertTrue(set.add(5));
+        assertEquals(Set.of(5), set);
+    }
+
+    @Test
+    void testRemove() {
+        Random random = new Random(293);
+        for (int size = 1; size < 12; size++) {
+            CompactSet<Integer> set = new CompactSet<>();
+            Set<Integer> expected = new HashSet<>();
+            for (int i = 0; i < size; i++) {
+                set.add(i);
+                expected.add(i);
+            }
+
+            //Passes if removing elements in a random order keeps the same elements as a HashSet
+            List<Integer> order = new ArrayList<>(expected);
+            Collections.shuffle(order, random);
+            for (Integer element : order) {
+                assertTrue(set.remove(element));
+                assertFalse(set.remove(element));
+                expected.remove(element);
+                assertEquals(expected, set);
+            }
+            assertTrue(set.isEmpty());
+        }
+
+        CompactSet<String> set = new CompactSet<>();
+        set.addAll(List.of("a", "b", "c"));
+        set.removeIf(element -> !element.equals("b"));
+        assertEquals(Set.of("b"), set);
+        Iterator<String> iterator = set.iterator();
+        assertThrows(IllegalStateException.class, iterator::remove);
+        iterator.next();
+        assertThrows(NoSuchElementException.class, iterator::next);
+    }
+}
@@ -0,0 +1,102 @@
+package gis.test;
+
+import gis.BiDimensionalMap;
+import gis.ConcurrentBiDimensionalMap;
+import gis.Coordinate;
+import gis.InterestPoint;
+import gis.Rectangle;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static gis.test.CoordinateTest.makeCoord;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentBiDimensionalMapTest {
+
+    static ConcurrentBiDimensionalMap<InterestPoint> makeTestMap() {
+        ConcurrentBiDimensionalMap<InterestPoint> map = new ConcurrentBiDimensionalMap<>();
+        for (InterestPoint point : BiDimensionalMapTest.interestPointArray) {
+            map.getUpdater().setCoordinate(point.coordinate()).addValue(point).add();
+        }
+        return map;
+    }
+
+    @Test
+    void testAddAndGet() {
+        ConcurrentBiDimensionalMap<InterestPoint> map = makeTestMap();
+        for (InterestPoint point : BiDimensionalMapTest.interestPointArray) {
+            assertTrue(map.get(point.coordinate()).contains(point));
+        }
+        assertEquals(BiDimensionalMapTest.interestPointArray.length, map.collectionSize());
+        assertFalse(map.getUpdater().setCoordinate(Coordinate.ORIGIN).addValue(BiDimensionalMapTest.interestPointArray[0]).add());
+        assertNull(map.get(makeCoord(-1, -1)));
+    }
+
+    @Test
+    void testSet() {
+        ConcurrentBiDimensionalMap<InterestPoint> map = makeTestMap();
+        InterestPoint demolitionZone = new InterestPoint<>(Coordinate.ORIGIN, Marker.SCHOOL);
+        Collection<InterestPoint> previousValues = map.getUpdater()
+                .setCoordinate(Coordinate.ORIGIN)
+                .addValue(demolitionZone)
+                .set();
+
+        assertTrue(previousValues.contains(BiDimensionalMapTest.interestPointArray[0]));
+        assertEquals(Set.of(demolitionZone), map.get(Coordinate.ORIGIN));
+        assertEquals(BiDimensionalMapTest.interestPointArray.length - 1, map.collectionSize());
+    }
+
+    @Test
+    void testSlice() {
+        ConcurrentBiDimensionalMap<InterestPoint> map = makeTestMap();
+        Rectangle rectangle = new Rectangle(makeCoord(1, 1), makeCoord(3, 2));
+        BiDimensionalMap<InterestPoint> slice = map.slice(rectangle);
+        assertEquals(List.of(makeCoord(1, 1), makeCoord(2, 1)), slice.coordinateSet());
+    }
+
+    @Test
+    void testReadsDuringWrites() throws Exception {
+        //one thread keeps replacing the markers at each point with two markers while others read them
+        final int SIZE = 20;
+        ConcurrentBiDimensionalMap<InterestPoint> map = new ConcurrentBiDimensionalMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<?> writer = executor.submit(() -> {
+                for (int round = 0; round < 50; round++) {
+                    for (int x = 0; x < SIZE; x++) {
+                        for (int y = 0; y < SIZE; y++) {
+                            map.getUpdater().setCoordinate(makeCoord(x, y))
+                                    .addValue(new InterestPoint<>(makeCoord(x, y), Marker.HOME))
+                                    .addValue(new InterestPoint<>(makeCoord(x, y), Marker.values()[round % 2 == 0 ? 0 : 1]))
+                                    .set();
+                        }
+                    }
+                }
+            });
+
+            List<Future<?>> readers = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                readers.add(executor.submit(() -> {
+                    while (!writer.isDone()) {
+                        for (Collection<InterestPoint> markers : map.collectionList()) {
+                            //a reader never sees a set of markers from half of an update
+                            assertEquals(2, markers.size());
+                        }
+                        map.slice(new Rectangle(Coordinate.ORIGIN, makeCoord(SIZE / 2, SIZE / 2)));
+                    }
+                }));
+            }
+
+            writer.get(30, TimeUnit.SECONDS);
+            for (Future<?> reader : readers) {
+                reader.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(SIZE * SIZE * 2, map.collectionSize());
+        assertTrue(map.get(makeCoord(0, 0)).contains(new InterestPoint<>(makeCoord(0, 0), Marker.HOME)));
+    }
+}
@@ -22,25 +22,22 @@ class CoordinateTest {
 
     //invalid points
     static Coordinate nullPoint = null;
-    static Coordinate nullY = new Coordinate(new BigDecimal(3), null);
-    static Coordinate nullXandY = new Coordinate(null, null);
 
     static Coordinate makeCoord(int x, int y){
         return new Coordinate(new BigDecimal(x), new BigDecimal(y));
     }
 
     @Test
-    public void testValidate(){ //tests both validate methods
-        Coordinate [] invalidCoordinates = {
-                nullPoint,
-                nullY,
-                nullXandY
-        };
-
-        for (Coordinate coordinate : invalidCoordinates) {
-            assertThrows(NullPointerException.class, () -> coordinate.validate());
-            assertThrows(NullPointerException.class, () -> Coordinate.validate(coordinate));
-        }
+    public void testValidate(){ //tests both validate methods and the checks made by the constructor
+        assertThrows(NullPointerException.class, () -> nullPoint.validate());
+        assertThrows(NullPointerException.class, () -> Coordinate.validate(nullPoint));
+
+        assertThrows(NullPointerException.class, () -> new Coordinate(new BigDecimal(3), null));
+        assertThrows(NullPointerException.class, () -> new Coordinate(null, new BigDecimal(3)));
+        assertThrows(NullPointerException.class, () -> new Coordinate(null, null));
+
+        assertSame(c1x1, c1x1.validate());
+        assertSame(c1x1, Coordinate.validate(c1x1));
     }
 
     @Test
@@ -74,4 +71,18 @@ class CoordinateTest {
     }
 
 
+    @Test
+    public void testCanonical(){
+        //Passes if equal values made with different scales are stored the same way
+        assertEquals(new Coordinate(new BigDecimal("1.0"), new BigDecimal("2.50")), new Coordinate(d1, new BigDecimal("2.5")));
+        assertEquals(new Coordinate(new BigDecimal("1.0"), d0).hashCode(), c1x0.hashCode());
+        assertEquals(new BigDecimal("10"), Coordinate.canonical(new BigDecimal("1E+1")));
+        assertEquals(new BigDecimal("10"), Coordinate.canonical(new BigDecimal("10.00")));
+        assertEquals(BigDecimal.ZERO, Coordinate.canonical(new BigDecimal("0.000")));
+        assertEquals(new BigDecimal("-0.25"), Coordinate.canonical(new BigDecimal("-0.250")));
+
+        BigDecimal canonical = new BigDecimal("3.75");
+        assertSame(canonical, Coordinate.canonical(canonical));
+        assertEquals("(1, 2.5)", new Coordinate(new BigDecimal("1.00"), new BigDecimal("2.50")).toSimpleString());
+    }
 }
\ No newline at end of file
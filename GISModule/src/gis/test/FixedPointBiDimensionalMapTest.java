@@ -0,0 +1,86 @@
+package gis.test;
+
+import gis.Coordinate;
+import gis.FixedPoint;
+import gis.FixedPointBiDimensionalMap;
+import gis.InterestPoint;
+import gis.Rectangle;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collection;
+import java.util.List;
+
+import static gis.test.CoordinateTest.makeCoord;
+import static org.junit.jupiter.api.Assertions.*;
+
+class FixedPointBiDimensionalMapTest {
+
+    static FixedPointBiDimensionalMap<InterestPoint> makeTestMap() {
+        FixedPointBiDimensionalMap<InterestPoint> map = new FixedPointBiDimensionalMap<>();
+        for (InterestPoint point : BiDimensionalMapTest.interestPointArray) {
+            map.getUpdater().setCoordinate(point.coordinate()).addValue(point).add();
+        }
+        return map;
+    }
+
+    @Test
+    void testFixedPointConversion() {
+        FixedPoint microdegrees = FixedPoint.MICRODEGREES;
+        assertEquals(41504300, microdegrees.toLong(new BigDecimal("41.5043")));
+        assertEquals(-81608800, microdegrees.toLong(new BigDecimal("-81.6088")));
+        assertEquals(0, new BigDecimal("41.5043").compareTo(microdegrees.toBigDecimal(41504300)));
+
+        //too many decimal places
+        assertThrows(IllegalArgumentException.class, () -> microdegrees.toLong(new BigDecimal("0.0000001")));
+        assertEquals(1, microdegrees.toLong(new BigDecimal("0.0000001"), RoundingMode.CEILING));
+        assertThrows(IllegalArgumentException.class, () -> new FixedPoint(-1));
+    }
+
+    @Test
+    void testAddAndGet() {
+        FixedPointBiDimensionalMap<InterestPoint> map = makeTestMap();
+        for (InterestPoint point : BiDimensionalMapTest.interestPointArray) {
+            assertTrue(map.get(point.coordinate()).contains(point));
+        }
+        assertEquals(BiDimensionalMapTest.interestPointArray.length, map.collectionSize());
+        assertNull(map.get(makeCoord(-1, -1)));
+        assertFalse(map.getUpdater().add());
+    }
+
+    @Test
+    void testSet() {
+        FixedPointBiDimensionalMap<InterestPoint> map = makeTestMap();
+        InterestPoint demolitionZone = new InterestPoint<>(Coordinate.ORIGIN, Marker.SCHOOL);
+        Collection<InterestPoint> previousValues = map.getUpdater()
+                .setCoordinate(Coordinate.ORIGIN)
+                .addValue(demolitionZone)
+                .set();
+
+        assertEquals(2, previousValues.size());
+        assertEquals(List.of(demolitionZone), List.copyOf(map.get(Coordinate.ORIGIN)));
+        assertEquals(BiDimensionalMapTest.interestPointArray.length - 1, map.collectionSize());
+
+        //the size only counts markers that were not already there
+        assertFalse(map.getUpdater().setCoordinate(Coordinate.ORIGIN).addValue(demolitionZone).add());
+        assertNull(map.getUpdater().setCoordinate(makeCoord(-3, 2)).addValue(demolitionZone).set());
+        assertEquals(BiDimensionalMapTest.interestPointArray.length, map.collectionSize());
+        assertEquals(map.collectionList().stream().mapToLong(Collection::size).sum(), map.collectionSize());
+    }
+
+    @Test
+    void testSlice() {
+        FixedPointBiDimensionalMap<InterestPoint> map = makeTestMap();
+        Rectangle rectangle = new Rectangle(makeCoord(1, 1), makeCoord(3, 2));
+        List<Coordinate> sliceCoordinates = map.slice(rectangle).coordinateSet();
+        assertEquals(2, sliceCoordinates.size());
+        assertEquals(0, sliceCoordinates.get(0).compareTo(makeCoord(1, 1)));
+        assertEquals(0, sliceCoordinates.get(1).compareTo(makeCoord(2, 1)));
+
+        //the borders are compared exactly even when they have more decimal places than the map
+        Rectangle thinRectangle = new Rectangle(new Coordinate(new BigDecimal("0.9999999"), BigDecimal.ZERO),
+                new Coordinate(new BigDecimal("1.0000001"), new BigDecimal(4)));
+        assertEquals(4, map.slice(thinRectangle).coordinateSet().size());
+    }
+}
@@ -28,16 +28,11 @@ class InterestPointTest {
 
     @Test
     void validate() {
-        Coordinate nullXYCoordinate = new Coordinate(null, null);
-
         InterestPoint<Marker> nullCoordinatePoint = new InterestPoint<>(null, Marker.CLASSROOM);
-        InterestPoint<Marker> nullXYCoordinatePoint = new InterestPoint<>(nullXYCoordinate, Marker.SCHOOL);
         InterestPoint<Marker> nullMarkerPoint = new InterestPoint<>(Coordinate.ORIGIN, null);
 
         assertThrows(NullPointerException.class, nullCoordinatePoint::validate);
 
-        assertThrows(NullPointerException.class, nullXYCoordinatePoint::validate);
-
         assertThrows(NullPointerException.class, nullMarkerPoint::validate);
     }
 
@@ -0,0 +1,161 @@
+package gis.test;
+
+import gis.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static gis.test.CoordinateTest.makeCoord;
+import static org.junit.jupiter.api.Assertions.*;
+
+class InterestPointsImporterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static final RectilinearRegion EVERYWHERE = RectilinearRegion.of(Set.of(RectangleTest.rectMaker(-1000, -1000, 1000, 1000)));
+
+    @Test
+    void testImportCsv() throws IOException {
+        Path path = tempDir.resolve("points.csv");
+        Files.writeString(path, String.join("\n",
+                "x,y,marker",
+                "1,2,HOME",
+                "1.5, 2 ,SCHOOL",
+                "\"3\",\"4\",\"WORK\"",
+                "",
+                "5,6,CASTLE",
+                "seven,8,HOME",
+                "9,10",
+                "-11,12.25,CLASSROOM\r",
+                "13,14,HOME,extra"));
+
+        InterestPoints.Builder<Marker> builder = new InterestPoints.Builder<>();
+        InterestPointsImporter.Result result = new InterestPointsImporter<>(Marker.class)
+                .skipFirstLine(true)
+                .importCsv(path, builder);
+        InterestPoints<Marker> interestPoints = builder.build();
+
+        assertEquals(4, result.accepted());
+        assertEquals(4, result.rejectedCount());
+        assertEquals(List.of(6L, 7L, 8L, 10L), result.rejections().stream().map(InterestPointsImporter.Rejection::line).toList());
+
+        assertTrue(interestPoints.get(makeCoord(1, 2)).contains(new InterestPoint<>(makeCoord(1, 2), Marker.HOME)));
+        assertNotNull(interestPoints.get(new Coordinate(new BigDecimal("1.5"), new BigDecimal(2))));
+        assertNotNull(interestPoints.get(makeCoord(3, 4)));
+        assertNotNull(interestPoints.get(new Coordinate(new BigDecimal(-11), new BigDecimal("12.25"))));
+        assertNull(interestPoints.get(makeCoord(5, 6)));
+        assertEquals(1, interestPoints.count(EVERYWHERE, Marker.CLASSROOM));
+    }
+
+    @Test
+    void testImportCsvInBatches() throws IOException {
+        //more lines than fit in the read buffer, added in batches smaller than the file
+        Path path = tempDir.resolve("large.csv");
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            csv.append(i % 100).append(',').append(i / 100).append(',').append(i % 2 == 0 ? "HOME" : "WORK").append('\n');
+        }
+        Files.writeString(path, csv);
+
+        InterestPoints.Builder<Marker> builder = new InterestPoints.Builder<>();
+        InterestPointsImporter.Result result = new InterestPointsImporter<>(Marker.class)
+                .batchSize(1_000)
+                .importCsv(path, builder);
+        InterestPoints<Marker> interestPoints = builder.build();
+
+        assertEquals(20_000, result.accepted());
+        assertEquals(0, result.rejectedCount());
+        assertEquals(10_000, interestPoints.count(EVERYWHERE, Marker.HOME));
+        assertEquals(10_000, interestPoints.count(EVERYWHERE, Marker.WORK));
+    }
+
+    @Test
+    void testImportGeoJson() throws IOException {
+        Path path = tempDir.resolve("points.geojson");
+        Files.writeString(path, """
+                {
+                  "type": "FeatureCollection",
+                  "name": "interest points",
+                  "features": [
+                    {"type": "Feature", "geometry": {"type": "Point", "coordinates": [1, 2]},
+                     "properties": {"marker": "HOME", "open": true, "note": null}},
+                    {"type": "Feature", "geometry": {"type": "Point", "coordinates": [-81.6088, 4.15e1]},
+                     "properties": {"marker": "SCHOOL", "name": "Case \\"Western\\" \\u0052eserve"}},
+                    {"type": "Feature", "geometry": {"type": "LineString", "coordinates": [[0, 0], [1, 1]]},
+                     "properties": {"marker": "HOME"}},
+                    {"type": "Feature", "geometry": {"type": "Point", "coordinates": [3, 4]},
+                     "properties": {"marker": "CASTLE"}},
+                    {"type": "Feature", "geometry": {"type": "Point", "coordinates": [5, 6]},
+                     "properties": {}}
+                  ]
+                }
+                """);
+
+        InterestPoints.Builder<Marker> builder = new InterestPoints.Builder<>();
+        InterestPointsImporter.Result result = new InterestPointsImporter<>(Marker.class).importGeoJson(path, builder);
+        InterestPoints<Marker> interestPoints = builder.build();
+
+        assertEquals(2, result.accepted());
+        assertEquals(3, result.rejectedCount());
+        assertEquals(List.of(9L, 11L, 13L), result.rejections().stream().map(InterestPointsImporter.Rejection::line).toList());
+        assertNotNull(interestPoints.get(makeCoord(1, 2)));
+        assertNotNull(interestPoints.get(new Coordinate(new BigDecimal("-81.6088"), new BigDecimal("4.15e1"))));
+        assertEquals(1, interestPoints.count(EVERYWHERE, Marker.SCHOOL));
+    }
+
+    @Test
+    void testImportDuplicates() throws IOException {
+        Path path = tempDir.resolve("duplicates.csv");
+        Files.write(path, List.of("1,2,HOME", "1,2,HOME", "1,2,WORK", "3,4,HOME"));
+
+        InterestPoints.Builder<Marker> builder = new InterestPoints.Builder<>();
+        builder.add(new InterestPoint<>(makeCoord(3, 4), Marker.HOME));
+        InterestPointsImporter.Result result = new InterestPointsImporter<>(Marker.class).importCsv(path, builder);
+
+        assertEquals(2, result.accepted());
+        assertEquals(0, result.rejectedCount());
+    }
+
+    @Test
+    void testImportGeoJsonKeepsEarlierBatches() throws IOException {
+        Path path = tempDir.resolve("broken.geojson");
+        Files.writeString(path, """
+                {"features": [
+                  {"geometry": {"type": "Point", "coordinates": [1, 2]}, "properties": {"marker": "HOME"}},
+                  {"geometry": {"type": "Point", "coordinates": [3, 4]}, "properties": {"marker": "HOME"}},
+                  {"geometry": {"type": "Point", "coordinates": [5, 6]}, "properties": {"marker": "HOME"}},
+                  {"geometry": {"type": "Point", "coordinates": [7, oops
+                """);
+
+        InterestPoints.Builder<Marker> builder = new InterestPoints.Builder<>();
+        InterestPointsImporter<Marker> importer = new InterestPointsImporter<>(Marker.class).batchSize(2);
+        assertThrows(IOException.class, () -> importer.importGeoJson(path, builder));
+
+        InterestPoints<Marker> interestPoints = builder.build();
+        assertNotNull(interestPoints.get(makeCoord(1, 2)));
+        assertNotNull(interestPoints.get(makeCoord(3, 4)));
+        assertNull(interestPoints.get(makeCoord(5, 6)));
+    }
+
+    @Test
+    void testImportInvalidGeoJson() throws IOException {
+        Path notAnObject = tempDir.resolve("array.geojson");
+        Files.writeString(notAnObject, "[1, 2, 3]");
+        Path unterminated = tempDir.resolve("unterminated.geojson");
+        Files.writeString(unterminated, "{\"features\": [{\"type\": \"Feature\"");
+        Path noFeatures = tempDir.resolve("empty.geojson");
+        Files.writeString(noFeatures, "{\"type\": \"FeatureCollection\"}");
+
+        InterestPointsImporter<Marker> importer = new InterestPointsImporter<>(Marker.class);
+        assertThrows(IOException.class, () -> importer.importGeoJson(notAnObject, new InterestPoints.Builder<>()));
+        assertThrows(IOException.class, () -> importer.importGeoJson(unterminated, new InterestPoints.Builder<>()));
+        assertThrows(IOException.class, () -> importer.importGeoJson(noFeatures, new InterestPoints.Builder<>()));
+        assertThrows(IllegalArgumentException.class, () -> importer.batchSize(0));
+    }
+}
@@ -0,0 +1,121 @@
+package gis.test;
+
+import gis.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static gis.test.CoordinateTest.makeCoord;
+import static org.junit.jupiter.api.Assertions.*;
+
+class InterestPointsSnapshotTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static InterestPoints<Marker> randomInterestPoints(Random random) {
+        InterestPoints.Builder<Marker> builder = new InterestPoints.Builder<>();
+        for (int i = 0; i < 300; i++) {
+            Marker marker = Marker.values()[random.nextInt(Marker.values().length)];
+            Coordinate coordinate = new Coordinate(BigDecimal.valueOf(random.nextInt(2000), 2), new BigDecimal(random.nextInt(20)));
+            builder.add(new InterestPoint<>(coordinate, marker));
+        }
+        return builder.build();
+    }
+
+    @Test
+    void testWriteAndOpen() throws IOException {
+        Random random = new Random(293);
+        InterestPoints<Marker> interestPoints = randomInterestPoints(random);
+        Path path = tempDir.resolve("points.snapshot");
+        InterestPointsSnapshot.write(interestPoints, path, FixedPoint.MICRODEGREES);
+        InterestPointsSnapshot<Marker> snapshot = InterestPointsSnapshot.open(path, Marker.class);
+
+        long pointCount = interestPoints.interestPoints().stream().mapToLong(Collection::size).sum();
+        assertEquals(pointCount, snapshot.size());
+
+        //Passes if every point can be found at its coordinate
+        for (Collection<InterestPoint> points : interestPoints.interestPoints()) {
+            Coordinate coordinate = points.iterator().next().coordinate();
+            Set<Marker> expectedMarkers = new HashSet<>();
+            points.forEach(point -> expectedMarkers.add((Marker) point.marker()));
+            Set<Marker> snapshotMarkers = new HashSet<>();
+            snapshot.get(coordinate).forEach(point -> snapshotMarkers.add(point.marker()));
+            assertEquals(expectedMarkers, snapshotMarkers);
+        }
+        assertNull(snapshot.get(makeCoord(-1, -1)));
+        assertNull(snapshot.get(new Coordinate(new BigDecimal("0.0000001"), BigDecimal.ZERO)));
+
+        //Passes if counts and slices match the InterestPoints the snapshot was written from
+        for (int i = 0; i < 50; i++) {
+            int left = random.nextInt(20);
+            int bottom = random.nextInt(20);
+            Rectangle rectangle = RectangleTest.rectMaker(left, bottom, left + 1 + random.nextInt(5), bottom + 1 + random.nextInt(5));
+            RectilinearRegion region = RectilinearRegion.of(Set.of(rectangle));
+            for (Marker marker : Marker.values()) {
+                assertEquals(interestPoints.count(region, marker), snapshot.count(region, marker));
+            }
+            assertEquals(snapshot.slice(rectangle).collectionSize(),
+                    Arrays.stream(Marker.values()).mapToLong(marker -> interestPoints.count(region, marker)).sum());
+        }
+
+        InterestPoints<Marker> reloaded = snapshot.toInterestPoints();
+        RectilinearRegion everywhere = RectilinearRegion.of(Set.of(RectangleTest.rectMaker(0, 0, 100, 100)));
+        for (Marker marker : Marker.values()) {
+            assertEquals(interestPoints.count(everywhere, marker), reloaded.count(everywhere, marker));
+        }
+    }
+
+    @Test
+    void testOpenInvalidFile() throws IOException {
+        Path path = tempDir.resolve("invalid.snapshot");
+        Files.write(path, new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+        assertThrows(IOException.class, () -> InterestPointsSnapshot.open(path, Marker.class));
+
+        //a snapshot cut off in the middle of its points
+        Path truncated = tempDir.resolve("truncated.snapshot");
+        InterestPointsSnapshot.write(randomInterestPoints(new Random(1)), truncated, FixedPoint.MICRODEGREES);
+        byte[] bytes = Files.readAllBytes(truncated);
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 10));
+        assertThrows(IOException.class, () -> InterestPointsSnapshot.open(truncated, Marker.class));
+    }
+
+    @Test
+    void testOpenCorruptHeader() throws IOException {
+        Path path = tempDir.resolve("points.snapshot");
+        InterestPointsSnapshot.write(randomInterestPoints(new Random(1)), path, FixedPoint.MICRODEGREES);
+        byte[] bytes = Files.readAllBytes(path);
+
+        Path corrupt = tempDir.resolve("corrupt.snapshot");
+        for (int markerCount : new int[] {-1, Integer.MAX_VALUE}) {
+            ByteBuffer.wrap(bytes).putInt(3 * Integer.BYTES, markerCount);
+            Files.write(corrupt, bytes);
+            assertThrows(IOException.class, () -> InterestPointsSnapshot.open(corrupt, Marker.class));
+        }
+
+        bytes = Files.readAllBytes(path);
+        ByteBuffer.wrap(bytes).putInt(2 * Integer.BYTES, -1);
+        Files.write(corrupt, bytes);
+        assertThrows(IOException.class, () -> InterestPointsSnapshot.open(corrupt, Marker.class));
+
+        //the marker index of the last point, which ends the file, is past the end of the marker table
+        bytes = Files.readAllBytes(path);
+        ByteBuffer.wrap(bytes).putShort(bytes.length - Short.BYTES, (short) Marker.values().length);
+        Files.write(corrupt, bytes);
+        assertThrows(IOException.class, () -> InterestPointsSnapshot.open(corrupt, Marker.class));
+    }
+
+    @Test
+    void testWriteCoordinateWithTooManyDecimals() {
+        InterestPoints.Builder<Marker> builder = new InterestPoints.Builder<>();
+        builder.add(new InterestPoint<>(new Coordinate(new BigDecimal("0.123"), BigDecimal.ZERO), Marker.HOME));
+        assertThrows(IllegalArgumentException.class,
+                () -> InterestPointsSnapshot.write(builder.build(), tempDir.resolve("points.snapshot"), new FixedPoint(2)));
+    }
+}
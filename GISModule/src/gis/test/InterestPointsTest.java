@@ -1,14 +1,16 @@
 package gis.test;
 
+import gis.BiDimensionalMap;
 import gis.Coordinate;
 import gis.InterestPoint;
 import gis.InterestPoints;
+import gis.Rectangle;
 import gis.RectilinearRegion;
 import org.junit.jupiter.api.Test;
 
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.List;
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 import static gis.test.CoordinateTest.makeCoord;
 import static org.junit.jupiter.api.Assertions.*;
@@ -84,7 +86,240 @@ class InterestPointsTest {
         assertEquals(points.count(region, Marker.HOME), 2);
         //Passes if one School marker (schoolInside1) is in the region
         assertEquals(points.count(region, Marker.SCHOOL), 1);
+        //Passes if markers with no points are not counted
+        assertEquals(points.count(region, Marker.WORK), 0);
+        assertEquals(new InterestPoints.Builder<Marker>().build().count(region, Marker.HOME), 0);
     }
 
+    @Test
+    void testCountWithPrefixSums(){
+        //Passes if both count indexes give the same counts for random points and rectangles
+        Random random = new Random(293);
+        InterestPoints.Builder<Marker> mapBuilder = new InterestPoints.Builder<>();
+        InterestPoints.Builder<Marker> prefixSumBuilder = new InterestPoints.Builder<Marker>()
+                .countIndex(InterestPoints.CountIndex.PREFIX_SUMS);
+        for (int i = 0; i < 500; i++) {
+            Marker marker = Marker.values()[random.nextInt(Marker.values().length)];
+            InterestPoint<Marker> point = new InterestPoint<>(makeCoord(random.nextInt(30), random.nextInt(30)), marker);
+            mapBuilder.add(point);
+            prefixSumBuilder.add(point);
+        }
+        InterestPoints<Marker> mapPoints = mapBuilder.build();
+        InterestPoints<Marker> prefixSumPoints = prefixSumBuilder.build();
+
+        for (int i = 0; i < 100; i++) {
+            int left = random.nextInt(30);
+            int bottom = random.nextInt(30);
+            RectilinearRegion region = RectilinearRegion.of(Set.of(RectangleTest.rectMaker(left, bottom,
+                    left + 1 + random.nextInt(10), bottom + 1 + random.nextInt(10))));
+            for (Marker marker : Marker.values()) {
+                assertEquals(mapPoints.count(region, marker), prefixSumPoints.count(region, marker));
+            }
+        }
+        assertTrue(mapPoints.prefixSumMarkers().isEmpty());
+        assertEquals(EnumSet.allOf(Marker.class), prefixSumPoints.prefixSumMarkers());
+    }
+
+    @Test
+    void testPrefixSumTableSize(){
+        //Passes if markers with a table larger than the maximum are counted with their map, and say so
+        InterestPoints.Builder<Marker> builder = new InterestPoints.Builder<Marker>()
+                .countIndex(InterestPoints.CountIndex.PREFIX_SUMS)
+                .maxTableSize(16);
+        for (int i = 0; i < 10; i++) {
+            builder.add(new InterestPoint<>(makeCoord(i, i), Marker.HOME));
+        }
+        builder.add(new InterestPoint<>(makeCoord(1, 1), Marker.WORK));
+        InterestPoints<Marker> points = builder.build();
+
+        assertEquals(Set.of(Marker.WORK), points.prefixSumMarkers());
+        RectilinearRegion region = RectilinearRegion.of(Set.of(RectangleTest.rectMaker(0, 0, 5, 5)));
+        assertEquals(5, points.count(region, Marker.HOME));
+        assertEquals(1, points.count(region, Marker.WORK));
+        assertThrows(IllegalArgumentException.class, () -> builder.maxTableSize(0));
+    }
+
+    @Test
+    void testCountAndSliceWithStrTree(){
+        //Passes if the tree gives the same counts and slices as the marker maps for clustered random points
+        Random random = new Random(293);
+        InterestPoints.Builder<Marker> mapBuilder = new InterestPoints.Builder<>();
+        InterestPoints.Builder<Marker> treeBuilder = new InterestPoints.Builder<Marker>()
+                .countIndex(InterestPoints.CountIndex.STR_TREE);
+        for (int i = 0; i < 2000; i++) {
+            Marker marker = Marker.values()[random.nextInt(Marker.values().length)];
+            int cluster = 50 * random.nextInt(3);
+            InterestPoint<Marker> point = new InterestPoint<>(makeCoord(cluster + random.nextInt(10), cluster + random.nextInt(100)), marker);
+            mapBuilder.add(point);
+            treeBuilder.add(point);
+        }
+        InterestPoints<Marker> mapPoints = mapBuilder.build();
+        InterestPoints<Marker> treePoints = treeBuilder.build();
 
-}
\ No newline at end of file
+        for (int i = 0; i < 100; i++) {
+            int left = random.nextInt(160) - 5;
+            int bottom = random.nextInt(160) - 5;
+            Rectangle rectangle = RectangleTest.rectMaker(left, bottom, left + 1 + random.nextInt(20), bottom + 1 + random.nextInt(60));
+            RectilinearRegion region = RectilinearRegion.of(Set.of(rectangle));
+            for (Marker marker : Marker.values()) {
+                assertEquals(mapPoints.count(region, marker), treePoints.count(region, marker));
+            }
+            BiDimensionalMap<InterestPoint> mapSlice = mapPoints.slice(rectangle);
+            BiDimensionalMap<InterestPoint> treeSlice = treePoints.slice(rectangle);
+            assertEquals(mapSlice.coordinateSet(), treeSlice.coordinateSet());
+            assertEquals(mapSlice.collectionSize(), treeSlice.collectionSize());
+        }
+
+        InterestPoints<Marker> empty = new InterestPoints.Builder<Marker>().countIndex(InterestPoints.CountIndex.STR_TREE).build();
+        assertEquals(0, empty.count(RectilinearRegionTest.regionOfSeparatedSet, Marker.HOME));
+        assertTrue(empty.slice(RectangleTest.rectMaker(0, 0, 1, 1)).coordinateSet().isEmpty());
+    }
+
+    @Test
+    void testParallelCount(){
+        //Passes if counting a region of many rectangles in parallel gives the same counts as counting them in order
+        Random random = new Random(293);
+        List<InterestPoint<Marker>> randomPoints = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            Marker marker = Marker.values()[random.nextInt(Marker.values().length)];
+            randomPoints.add(new InterestPoint<>(makeCoord(random.nextInt(100), random.nextInt(100)), marker));
+        }
+        Set<Rectangle> grid = new HashSet<>();
+        for (int x = 0; x < 100; x += 5) {
+            for (int y = 0; y < 100; y += 10) {
+                grid.add(RectangleTest.rectMaker(x, y, x + 4, y + 10));
+            }
+        }
+        RectilinearRegion region = RectilinearRegion.of(grid);
+
+        for (InterestPoints.CountIndex countIndex : InterestPoints.CountIndex.values()) {
+            InterestPoints.Builder<Marker> sequentialBuilder = new InterestPoints.Builder<Marker>().countIndex(countIndex);
+            InterestPoints.Builder<Marker> parallelBuilder = new InterestPoints.Builder<Marker>()
+                    .countIndex(countIndex)
+                    .parallelCount(4, 8);
+            InterestPoints.Builder<Marker> commonPoolBuilder = new InterestPoints.Builder<Marker>()
+                    .countIndex(countIndex)
+                    .parallelCount(ForkJoinPool.commonPool(), 8);
+            sequentialBuilder.addAll(randomPoints);
+            parallelBuilder.addAll(randomPoints);
+            commonPoolBuilder.addAll(randomPoints);
+            InterestPoints<Marker> sequential = sequentialBuilder.build();
+            InterestPoints<Marker> parallel = parallelBuilder.build();
+            InterestPoints<Marker> commonPool = commonPoolBuilder.build();
+
+            for (Marker marker : Marker.values()) {
+                assertEquals(sequential.count(region, marker), parallel.count(region, marker));
+                assertEquals(sequential.count(region, marker), commonPool.count(region, marker));
+                assertEquals(sequential.count(RectilinearRegionTest.regionOfSeparatedSet, marker),
+                        parallel.count(RectilinearRegionTest.regionOfSeparatedSet, marker));
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> new InterestPoints.Builder<Marker>().parallelCount(0, 8));
+        assertThrows(IllegalArgumentException.class, () -> new InterestPoints.Builder<Marker>().parallelCount(4, 0));
+        assertThrows(NullPointerException.class, () -> new InterestPoints.Builder<Marker>().parallelCount(null, 8));
+    }
+
+    @Test
+    void testAddAll(){
+        //Passes if adding points all at once gives the same points as adding them one at a time
+        Random random = new Random(293);
+        List<InterestPoint<Marker>> randomPoints = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            Marker marker = Marker.values()[random.nextInt(Marker.values().length)];
+            randomPoints.add(new InterestPoint<>(makeCoord(random.nextInt(20), random.nextInt(20)), marker));
+        }
+        randomPoints.add(new InterestPoint<>(Coordinate.ORIGIN, null));
+
+        InterestPoints.Builder<Marker> oneAtATime = new InterestPoints.Builder<>();
+        randomPoints.forEach(oneAtATime::add);
+        InterestPoints<Marker> expected = oneAtATime.build();
+
+        InterestPoints.Builder<Marker> allAtOnce = new InterestPoints.Builder<>();
+        //the first half makes new columns, the second half also adds to existing columns
+        assertTrue(allAtOnce.addAll(randomPoints.subList(0, 250)));
+        assertTrue(allAtOnce.addAll(randomPoints.subList(250, randomPoints.size()).parallelStream()));
+        assertFalse(allAtOnce.addAll(randomPoints));
+        InterestPoints<Marker> actual = allAtOnce.build();
+
+        assertEquals(expected.toString(), actual.toString());
+        RectilinearRegion region = RectilinearRegion.of(Set.of(RectangleTest.rectMaker(3, 4, 15, 12)));
+        for (Marker marker : Marker.values()) {
+            assertEquals(expected.count(region, marker), actual.count(region, marker));
+        }
+    }
+
+    @Test
+    void testNearest(){
+        InterestPoints.Builder<Marker> builder = new InterestPoints.Builder<>();
+        builder.add(new InterestPoint<>(makeCoord(5, 5), Marker.HOME));
+        builder.add(new InterestPoint<>(makeCoord(1, 1), Marker.HOME));
+        builder.add(new InterestPoint<>(makeCoord(-3, 0), Marker.HOME));
+        builder.add(new InterestPoint<>(makeCoord(0, 1), Marker.SCHOOL));
+        InterestPoints<Marker> points = builder.build();
+
+        //Passes if the HOME points are found closest first, and the closer SCHOOL point is skipped
+        assertEquals(List.of(new InterestPoint<>(makeCoord(1, 1), Marker.HOME), new InterestPoint<>(makeCoord(-3, 0), Marker.HOME)),
+                points.nearest(Coordinate.ORIGIN, 2, Marker.HOME));
+        assertEquals(List.of(new InterestPoint<>(makeCoord(0, 1), Marker.SCHOOL)), points.nearest(Coordinate.ORIGIN, 5, Marker.SCHOOL));
+        assertTrue(points.nearest(Coordinate.ORIGIN, 1, Marker.WORK).isEmpty());
+    }
+
+    @Test
+    void testCountWithinRadius(){
+        InterestPoints.Builder<Marker> builder = new InterestPoints.Builder<>();
+        builder.add(new InterestPoint<>(makeCoord(3, 4), Marker.HOME));
+        builder.add(new InterestPoint<>(makeCoord(1, 1), Marker.HOME));
+        builder.add(new InterestPoint<>(makeCoord(4, 4), Marker.HOME));
+        builder.add(new InterestPoint<>(makeCoord(0, 1), Marker.SCHOOL));
+        InterestPoints<Marker> points = builder.build();
+
+        //Passes if (3, 4), exactly 5 away, is counted and (4, 4) is not
+        assertEquals(2, points.count(Coordinate.ORIGIN, new BigDecimal(5), Marker.HOME));
+        assertEquals(1, points.count(Coordinate.ORIGIN, new BigDecimal(5), Marker.SCHOOL));
+        assertEquals(0, points.count(Coordinate.ORIGIN, new BigDecimal(5), Marker.WORK));
+    }
+
+    @Test
+    void testBuildIsSnapshot(){
+        //Passes if points added to the builder after build() are only in InterestPoints built after them
+        InterestPoints.Builder<Marker> builder = new InterestPoints.Builder<>();
+        builder.add(new InterestPoint<>(makeCoord(1, 1), Marker.HOME));
+        InterestPoints<Marker> first = builder.build();
+        Collection<InterestPoint> firstPoints = first.get(makeCoord(1, 1));
+
+        builder.add(new InterestPoint<>(makeCoord(1, 1), Marker.WORK));
+        builder.add(new InterestPoint<>(makeCoord(2, 2), Marker.HOME));
+        builder.addAll(List.of(new InterestPoint<>(makeCoord(9, 9), Marker.HOME)));
+        InterestPoints<Marker> second = builder.build();
+
+        RectilinearRegion region = RectilinearRegion.of(Set.of(RectangleTest.rectMaker(0, 0, 10, 10)));
+        assertEquals(1, first.count(region, Marker.HOME));
+        assertEquals(0, first.count(region, Marker.WORK));
+        assertEquals(1, firstPoints.size());
+        assertNull(first.get(makeCoord(2, 2)));
+        assertEquals(1, first.interestPoints().size());
+
+        assertEquals(3, second.count(region, Marker.HOME));
+        assertEquals(1, second.count(region, Marker.WORK));
+        assertEquals(2, second.get(makeCoord(1, 1)).size());
+        assertEquals(3, second.interestPoints().size());
+    }
+
+    @Test
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    void testMixedMarkerEnums(){
+        //Passes if points with a marker of another enum than the first point are not added, one at a time or all at once
+        InterestPoints.Builder builder = new InterestPoints.Builder();
+        assertTrue(builder.add(new InterestPoint<>(makeCoord(1, 1), Marker.HOME)));
+        assertFalse(builder.add(new InterestPoint<>(makeCoord(2, 2), java.math.RoundingMode.UP)));
+        assertTrue(builder.addAll(List.of(new InterestPoint<>(makeCoord(3, 3), java.math.RoundingMode.UP),
+                new InterestPoint<>(makeCoord(4, 4), Marker.SCHOOL))));
+
+        InterestPoints<Marker> points = builder.build();
+        RectilinearRegion region = RectilinearRegion.of(Set.of(RectangleTest.rectMaker(0, 0, 10, 10)));
+        assertEquals(1, points.count(region, Marker.HOME));
+        assertEquals(1, points.count(region, Marker.SCHOOL));
+        assertNull(points.get(makeCoord(2, 2)));
+        assertNull(points.get(makeCoord(3, 3)));
+    }
+}
@@ -0,0 +1,111 @@
+package gis.test;
+
+import gis.*;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+import static gis.test.CoordinateTest.makeCoord;
+import static org.junit.jupiter.api.Assertions.*;
+
+class MortonBiDimensionalMapTest {
+
+    static MortonBiDimensionalMap<InterestPoint> makeTestMap() {
+        MortonBiDimensionalMap<InterestPoint> map = new MortonBiDimensionalMap<>();
+        for (InterestPoint point : BiDimensionalMapTest.interestPointArray) {
+            map.getUpdater().setCoordinate(point.coordinate()).addValue(point).add();
+        }
+        return map;
+    }
+
+    @Test
+    void testAddAndGet() {
+        MortonBiDimensionalMap<InterestPoint> map = makeTestMap();
+        for (InterestPoint point : BiDimensionalMapTest.interestPointArray) {
+            assertTrue(map.get(point.coordinate()).contains(point));
+        }
+        assertEquals(BiDimensionalMapTest.interestPointArray.length, map.collectionSize());
+        assertFalse(map.getUpdater().setCoordinate(Coordinate.ORIGIN).addValue(BiDimensionalMapTest.interestPointArray[0]).add());
+        assertEquals(BiDimensionalMapTest.interestPointArray.length, map.collectionSize());
+        assertNull(map.get(makeCoord(-1, -1)));
+        assertFalse(map.getUpdater().add());
+
+        //fixed-point values must fit in an int
+        assertThrows(IllegalArgumentException.class, () -> map.get(makeCoord(5000, 0)));
+        assertThrows(IllegalArgumentException.class, () -> map.get(new Coordinate(new BigDecimal("0.0000001"), BigDecimal.ZERO)));
+    }
+
+    @Test
+    void testBuilder() {
+        //Passes if a map built by sorting once has the same markers as a map made with the Updater
+        MortonBiDimensionalMap<InterestPoint> updated = makeTestMap();
+        MortonBiDimensionalMap.Builder<InterestPoint> builder = new MortonBiDimensionalMap.Builder<>();
+        for (int i = BiDimensionalMapTest.interestPointArray.length - 1; i >= 0; i--) {
+            InterestPoint point = BiDimensionalMapTest.interestPointArray[i];
+            builder.add(point.coordinate(), point).add(point.coordinate(), point);
+        }
+        MortonBiDimensionalMap<InterestPoint> built = builder.build();
+
+        assertEquals(updated.collectionSize(), built.collectionSize());
+        assertEquals(updated.coordinateSet(), built.coordinateSet());
+        for (Coordinate coordinate : updated.coordinateSet()) {
+            assertEquals(Set.copyOf(updated.get(coordinate)), Set.copyOf(built.get(coordinate)));
+        }
+
+        //the built map can be changed with the Updater like any other
+        InterestPoint school = new InterestPoint<>(makeCoord(-2, -2), Marker.SCHOOL);
+        assertTrue(built.getUpdater().setCoordinate(school.coordinate()).addValue(school).add());
+        assertEquals(List.of(school), List.copyOf(built.get(school.coordinate())));
+        assertThrows(IllegalArgumentException.class, () -> builder.add(makeCoord(5000, 0), school));
+    }
+
+    @Test
+    void testSet() {
+        MortonBiDimensionalMap<InterestPoint> map = makeTestMap();
+        InterestPoint demolitionZone = new InterestPoint<>(Coordinate.ORIGIN, Marker.SCHOOL);
+        Collection<InterestPoint> previousValues = map.getUpdater()
+                .setCoordinate(Coordinate.ORIGIN)
+                .addValue(demolitionZone)
+                .set();
+
+        assertTrue(previousValues.contains(BiDimensionalMapTest.interestPointArray[0]));
+        assertEquals(List.of(demolitionZone), List.copyOf(map.get(Coordinate.ORIGIN)));
+        assertEquals(BiDimensionalMapTest.interestPointArray.length - 1, map.collectionSize());
+        assertNull(map.getUpdater().setCoordinate(makeCoord(-3, 2)).addValue(demolitionZone).set());
+    }
+
+    @Test
+    void testSliceMatchesBiDimensionalMap() {
+        //Passes if the Morton map has the same points and slices as a BiDimensionalMap of random points
+        Random random = new Random(293);
+        BiDimensionalMap<InterestPoint> map = new BiDimensionalMap<>();
+        for (int i = 0; i < 2000; i++) {
+            Coordinate coordinate = new Coordinate(BigDecimal.valueOf(random.nextInt(20000) - 10000, 2),
+                    BigDecimal.valueOf(random.nextInt(20000) - 10000, 2));
+            Marker marker = Marker.values()[random.nextInt(Marker.values().length)];
+            map.getUpdater().setCoordinate(coordinate).addValue(new InterestPoint<>(coordinate, marker)).add();
+        }
+        MortonBiDimensionalMap<InterestPoint> mortonMap = MortonBiDimensionalMap.of(map, FixedPoint.MICRODEGREES);
+
+        assertEquals(map.collectionSize(), mortonMap.collectionSize());
+        assertEquals(map.coordinateSet().size(), mortonMap.coordinateSet().size());
+        for (Coordinate coordinate : map.coordinateSet()) {
+            assertEquals(Set.copyOf(map.get(coordinate)), Set.copyOf(mortonMap.get(coordinate)));
+        }
+
+        for (int i = 0; i < 100; i++) {
+            int left = random.nextInt(220) - 110;
+            int bottom = random.nextInt(220) - 110;
+            Rectangle rectangle = RectangleTest.rectMaker(left, bottom, left + 1 + random.nextInt(100), bottom + 1 + random.nextInt(30));
+            BiDimensionalMap<InterestPoint> slice = map.slice(rectangle);
+            MortonBiDimensionalMap<InterestPoint> mortonSlice = mortonMap.slice(rectangle);
+            assertEquals(slice.collectionSize(), mortonSlice.collectionSize());
+            assertEquals(slice.coordinateSet().size(), mortonSlice.coordinateSet().size());
+        }
+
+        //a rectangle larger than the range of the map holds every point
+        Rectangle everything = RectangleTest.rectMaker(-1000000, -1000000, 1000000, 1000000);
+        assertEquals(map.collectionSize(), mortonMap.slice(everything).collectionSize());
+    }
+}
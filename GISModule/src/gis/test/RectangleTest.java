@@ -26,18 +26,15 @@ class RectangleTest {
 
     @Test
     void testValidate() {
-        Rectangle [] invalidRectangles = {
-                new Rectangle(makeCoord(0,1), null),
-                new Rectangle(makeCoord(1,0), CoordinateTest.nullY),
-                rectMaker(1,0,0,0),
-                rectMaker(0,0,0,0),
-                rectMaker(1,1,1,0)
-        };
-
-        for (Rectangle rectangle : invalidRectangles) {
-            assertThrows(Exception.class, rectangle::validate);
-            assertThrows(Exception.class, () -> Rectangle.validate(rectangle));
-        }
+        //invalid rectangles can not be made
+        assertThrows(NullPointerException.class, () -> new Rectangle(makeCoord(0,1), null));
+        assertThrows(NullPointerException.class, () -> new Rectangle(null, makeCoord(0,1)));
+        assertThrows(IllegalArgumentException.class, () -> rectMaker(1,0,0,0));
+        assertThrows(IllegalArgumentException.class, () -> rectMaker(0,0,0,0));
+        assertThrows(IllegalArgumentException.class, () -> rectMaker(1,1,1,0));
+
+        Rectangle nullRectangle = null;
+        assertThrows(NullPointerException.class, () -> Rectangle.validate(nullRectangle));
 
         for (Rectangle rectangle: validRectangles) {
             rectangle.validate();
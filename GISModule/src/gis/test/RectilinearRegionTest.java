@@ -5,10 +5,7 @@ import gis.Rectangle;
 import gis.RectilinearRegion;
 import org.junit.jupiter.api.Test;
 
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.LinkedHashSet;
-import java.util.Set;
+import java.util.*;
 
 import static gis.test.RectangleTest.rectMaker;
 import static gis.test.CoordinateTest.makeCoord;
@@ -59,4 +56,59 @@ class RectilinearRegionTest {
             RectilinearRegion.of(overlappingSet);
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    void testTouchingRectanglesDoNotOverlap() {
+        //rectangles that only share a border, and a line along the border of another rectangle
+        Set<Rectangle> touchingSet = new HashSet<>(Arrays.asList(
+                rectMaker(0, 0, 2, 2),
+                rectMaker(2, 0, 4, 2),
+                rectMaker(0, 2, 4, 3),
+                rectMaker(1, 1, 3, 1)
+        ));
+        assertFalse(RectilinearRegion.of(touchingSet).isOverlapping());
+    }
+
+    @Test
+    void testIsOverlappingMatchesPairwiseCheck() {
+        Random random = new Random(293);
+        for (int i = 0; i < 200; i++) {
+            Set<Rectangle> rectangleSet = new HashSet<>();
+            for (int j = 0; j < 6; j++) {
+                int left = random.nextInt(10);
+                int bottom = random.nextInt(10);
+                rectangleSet.add(rectMaker(left, bottom, left + 1 + random.nextInt(4), bottom + 1 + random.nextInt(4)));
+            }
+
+            List<Rectangle> rectangles = new ArrayList<>(rectangleSet);
+            boolean pairOverlaps = false;
+            for (int a = 0; a < rectangles.size(); a++) {
+                for (int b = a + 1; b < rectangles.size(); b++) {
+                    Rectangle first = rectangles.get(a);
+                    Rectangle second = rectangles.get(b);
+                    boolean xOverlaps = first.left().max(second.left()).compareTo(first.right().min(second.right())) < 0;
+                    boolean yOverlaps = first.bottom().max(second.bottom()).compareTo(first.top().min(second.top())) < 0;
+                    pairOverlaps |= xOverlaps && yOverlaps;
+                }
+            }
+
+            if (pairOverlaps) {
+                assertThrows(IllegalArgumentException.class, () -> RectilinearRegion.of(rectangleSet));
+            } else {
+                assertFalse(RectilinearRegion.of(rectangleSet).isOverlapping());
+            }
+        }
+    }
+
+    @Test
+    void testManyRectangles() {
+        //a 100 by 100 grid of touching unit squares
+        Set<Rectangle> grid = new HashSet<>();
+        for (int x = 0; x < 100; x++) {
+            for (int y = 0; y < 100; y++) {
+                grid.add(rectMaker(x, y, x + 1, y + 1));
+            }
+        }
+        assertEquals(10000, RectilinearRegion.of(grid).getRectangles().size());
+    }
+}
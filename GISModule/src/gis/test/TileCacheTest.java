@@ -0,0 +1,137 @@
+package gis.test;
+
+import gis.BiDimensionalMap;
+import gis.InterestPoint;
+import gis.Rectangle;
+import gis.TileCache;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import static gis.test.CoordinateTest.makeCoord;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TileCacheTest {
+
+    static Rectangle unitViewport(int side) {
+        return new Rectangle(makeCoord(0, 0), makeCoord(side, side));
+    }
+
+    @Test
+    void testTileCounts() {
+        //Passes if every cell of the tile has the number of markers at its coordinate
+        BiDimensionalMap<InterestPoint<Marker>> map = new BiDimensionalMap<>();
+        Random random = new Random(293);
+        long[][] expected = new long[8][8];
+        for (int i = 0; i < 200; i++) {
+            int x = random.nextInt(10);
+            int y = random.nextInt(10);
+            if (map.put(makeCoord(x, y), new InterestPoint<>(makeCoord(x, y), Marker.values()[i % Marker.values().length]))
+                    && x < 8 && y < 8) {
+                expected[x][y]++;
+            }
+        }
+
+        TileCache.Tile tile = new TileCache<>(map, 4).tile(unitViewport(8), 3);
+        assertEquals(8, tile.side());
+        for (int x = 0; x < 8; x++) {
+            for (int y = 0; y < 8; y++) {
+                assertEquals(expected[x][y], tile.count(x, y));
+            }
+        }
+
+        //a coarser zoom adds up 2 x 2 blocks of cells
+        TileCache.Tile coarse = new TileCache<>(map, 4).tile(unitViewport(8), 2);
+        assertEquals(expected[2][4] + expected[3][4] + expected[2][5] + expected[3][5], coarse.count(1, 2));
+    }
+
+    @Test
+    void testCacheAndVersion() {
+        //Passes if tiles are reused until the map changes, and are counted again after it changes
+        BiDimensionalMap<InterestPoint<Marker>> map = new BiDimensionalMap<>();
+        map.put(makeCoord(1, 1), new InterestPoint<>(makeCoord(1, 1), Marker.HOME));
+        TileCache<InterestPoint<Marker>> cache = new TileCache<>(map, 2);
+
+        TileCache.Tile tile = cache.tile(unitViewport(4), 2);
+        assertSame(tile, cache.tile(unitViewport(4), 2));
+        assertEquals(1, tile.count(1, 1));
+
+        //adding a marker that is already there does not change the map
+        assertFalse(map.put(makeCoord(1, 1), new InterestPoint<>(makeCoord(1, 1), Marker.HOME)));
+        assertSame(tile, cache.tile(unitViewport(4), 2));
+
+        //the cached tile is updated by the change instead of counted again
+        long version = tile.version();
+        map.put(new BigDecimal("1.5"), BigDecimal.ONE, new InterestPoint<>(makeCoord(1, 1), Marker.WORK));
+        assertEquals(map.version(), tile.version());
+        assertTrue(tile.version() > version);
+        assertEquals(2, tile.count(1, 1));
+        assertSame(tile, cache.tile(unitViewport(4), 2));
+
+        //once the cache stops listening, a changed map is counted again
+        cache.close();
+        map.put(makeCoord(3, 3), new InterestPoint<>(makeCoord(3, 3), Marker.HOME));
+        TileCache.Tile newTile = cache.tile(unitViewport(4), 2);
+        assertNotSame(tile, newTile);
+        assertEquals(1, newTile.count(3, 3));
+        assertEquals(2, newTile.count(1, 1));
+
+        //the least recently used tile is dropped once the cache is full
+        cache.tile(unitViewport(4), 2);
+        cache.tile(unitViewport(4), 1);
+        cache.tile(unitViewport(4), 0);
+        assertEquals(2, cache.size());
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testIncrementalUpdates() {
+        //Passes if tiles updated by every kind of change have the same counts as tiles counted from scratch
+        BiDimensionalMap<InterestPoint<Marker>> map = new BiDimensionalMap<>();
+        TileCache<InterestPoint<Marker>> cache = new TileCache<>(map, 8);
+        Rectangle viewport = new Rectangle(makeCoord(2, 2), makeCoord(10, 6));
+        TileCache.Tile tile = cache.tile(viewport, 2);
+        TileCache.Tile wholeTile = cache.tile(unitViewport(16), 3);
+
+        Random random = new Random(293);
+        for (int i = 0; i < 500; i++) {
+            int x = random.nextInt(14);
+            int y = random.nextInt(14);
+            InterestPoint<Marker> point = new InterestPoint<>(makeCoord(x, y), Marker.values()[random.nextInt(Marker.values().length)]);
+            switch (i % 3) {
+                case 0 -> map.put(point.coordinate(), point);
+                case 1 -> map.getUpdater().setCoordinate(point.coordinate()).addValue(point).add();
+                default -> map.getUpdater().setCoordinate(point.coordinate()).addValue(point).set();
+            }
+        }
+
+        TileCache<InterestPoint<Marker>> freshCache = new TileCache<>(map, 2);
+        assertTileEquals(freshCache.tile(viewport, 2), tile);
+        assertTileEquals(freshCache.tile(unitViewport(16), 3), wholeTile);
+        assertSame(tile, cache.tile(viewport, 2));
+    }
+
+    static void assertTileEquals(TileCache.Tile expected, TileCache.Tile actual) {
+        assertEquals(expected.side(), actual.side());
+        assertEquals(expected.version(), actual.version());
+        for (int column = 0; column < expected.side(); column++) {
+            for (int row = 0; row < expected.side(); row++) {
+                assertEquals(expected.count(column, row), actual.count(column, row));
+            }
+        }
+    }
+
+    @Test
+    void testInvalidArguments() {
+        BiDimensionalMap<InterestPoint<Marker>> map = new BiDimensionalMap<>();
+        assertThrows(IllegalArgumentException.class, () -> new TileCache<>(map, 0));
+        assertThrows(NullPointerException.class, () -> new TileCache<>(null, 1));
+
+        TileCache<InterestPoint<Marker>> cache = new TileCache<>(map, 1);
+        assertThrows(IllegalArgumentException.class, () -> cache.tile(unitViewport(1), -1));
+        assertThrows(IllegalArgumentException.class, () -> cache.tile(unitViewport(1), TileCache.MAX_ZOOM + 1));
+        assertThrows(NullPointerException.class, () -> cache.tile(null, 1));
+    }
+}
@@ -3,6 +3,8 @@ package gis.userInterface;
 import gis.BiDimensionalMap;
 import gis.Coordinate;
 import gis.InterestPoint;
+import gis.Rectangle;
+import gis.TileCache;
 
 import java.math.BigDecimal;
 import java.util.Collection;
@@ -20,6 +22,7 @@ public class Main {
     //Screens
     private static void firstScreen(){
         pointMap = newPointMap.get();
+        tileCache = new TileCache<>(pointMap, TILE_CACHE_CAPACITY);
         final String FIRST_MESSAGE = "Would you like to make a: ";
 
         LinkOption[] linkOptions = new LinkOption[] {
@@ -96,8 +99,16 @@ public class Main {
 
     final private static int UPPER_COORDINATE_BOUND = 15;
 
+    //the graph has one cell for each whole number coordinate from 0 to UPPER_COORDINATE_BOUND, so 2^4 cells per side
+    final private static int GRAPH_ZOOM = 4;
+    final private static Rectangle GRAPH_VIEWPORT = new Rectangle(Coordinate.ORIGIN,
+            new Coordinate(new BigDecimal(UPPER_COORDINATE_BOUND + 1), new BigDecimal(UPPER_COORDINATE_BOUND + 1)));
+    final private static int TILE_CACHE_CAPACITY = 16;
+    private static TileCache tileCache;
+
     private static void clearMap() {
         pointMap = newPointMap.get();
+        tileCache = new TileCache<>(pointMap, TILE_CACHE_CAPACITY);
         pointMapScreen();
     }
 
@@ -196,28 +207,22 @@ public class Main {
 
     private static StringBuilder mapGraph(){
         StringBuilder mapString = new StringBuilder("\n");
+        //every marker is counted in one pass, and the tile is reused until the map changes
+        TileCache.Tile tile = tileCache.tile(GRAPH_VIEWPORT, GRAPH_ZOOM);
 
         for (int y = UPPER_COORDINATE_BOUND; y >=0; y--){
 
             for(int x = 0; x<= UPPER_COORDINATE_BOUND; x++){
 
-                mapString.append(cell(x, y));
+                mapString.append(cell(x, y, (int) tile.count(x, y)));
             }
             mapString.append("\n");
         }
         return mapString;
     }
 
-    private static int numOfPoints(int x, int y) {
-        Coordinate coordinate = new Coordinate(new BigDecimal(x), new BigDecimal(y));
-        if (pointMap.coordinateSet().contains(coordinate)){
-            return pointMap.get(coordinate).size();
-        } else return 0;
-    }
-
-    private static char[] cell(int x, int y) {
+    private static char[] cell(int x, int y, int numOfPoints) {
         char[] chars = new char[2];
-        int numOfPoints = numOfPoints(x, y);
 
         if (numOfPoints > 0) {
             return numberToChars(numOfPoints);